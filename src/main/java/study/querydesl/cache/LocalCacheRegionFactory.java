@@ -0,0 +1,62 @@
+package study.querydesl.cache;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.util.Map;
+
+/**
+ * 별도 캐시 서버 없이 JVM 안에서 동작하는 2차 캐시 RegionFactory
+ * : 리전마다 크기 제한이 있는 LRU 맵 하나를 사용한다. 어떤 엔티티를 캐시할지는
+ * hibernate.classcache.{엔티티 클래스} = read-write 처럼 설정으로 정한다. (application.yml 참고)
+ */
+public class LocalCacheRegionFactory extends RegionFactoryTemplate {
+
+    /**
+     * 리전별 최대 엔트리 수 (넘으면 가장 오래 쓰지 않은 엔트리부터 내보낸다)
+     */
+    public static final String MAX_ENTRIES = "hibernate.cache.local.max_entries";
+
+    private int maxEntries = 10_000;
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, @SuppressWarnings("rawtypes") Map configValues) {
+        Object value = configValues.get(MAX_ENTRIES);
+        if (value != null) {
+            maxEntries = Integer.parseInt(value.toString());
+        }
+    }
+
+    @Override
+    protected void releaseFromUse() {
+    }
+
+    @Override
+    public AccessType getDefaultAccessType() {
+        return AccessType.READ_WRITE;
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        return new LocalStorageAccess(maxEntries);
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+                                                                  SessionFactoryImplementor sessionFactory) {
+        return new LocalStorageAccess(maxEntries);
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+                                                                SessionFactoryImplementor sessionFactory) {
+        return new LocalStorageAccess(maxEntries);
+    }
+}
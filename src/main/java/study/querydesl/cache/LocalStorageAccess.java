@@ -0,0 +1,55 @@
+package study.querydesl.cache;
+
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LocalCacheRegionFactory 의 리전 저장소
+ * : 크기 제한이 있는 LRU. 가득 차면 리전 전체가 아니라 가장 오래 쓰지 않은 엔트리 하나만 내보낸다.
+ */
+class LocalStorageAccess implements DomainDataStorageAccess {
+
+    private final Map<Object, Object> data;
+
+    LocalStorageAccess(int maxEntries) {
+        this.data = new LinkedHashMap<Object, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public synchronized Object getFromCache(Object key, SharedSessionContractImplementor session) {
+        return data.get(key);
+    }
+
+    @Override
+    public synchronized void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+        data.put(key, value);
+    }
+
+    @Override
+    public synchronized boolean contains(Object key) {
+        return data.containsKey(key);
+    }
+
+    @Override
+    public synchronized void evictData() {
+        data.clear();
+    }
+
+    @Override
+    public synchronized void evictData(Object key) {
+        data.remove(key);
+    }
+
+    @Override
+    public synchronized void release() {
+        data.clear();
+    }
+}
@@ -0,0 +1,37 @@
+package study.querydesl.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import study.querydesl.repository.support.InvalidCursorException;
+import study.querydesl.repository.support.UnknownFieldException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 잘못된 요청 파라미터로 저장소에서 난 예외를 400 으로 응답 (메시지에 허용 값을 담는다)
+ */
+@RestControllerAdvice
+public class BadRequestExceptionHandler {
+
+    @ExceptionHandler(UnknownFieldException.class)
+    public ResponseEntity<Map<String, Object>> unknownField(UnknownFieldException e) {
+        return badRequest(e);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Map<String, Object>> invalidCursor(InvalidCursorException e) {
+        return badRequest(e);
+    }
+
+    private static ResponseEntity<Map<String, Object>> badRequest(RuntimeException e) {
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", e.getMessage());
+        return ResponseEntity.status(status).body(body);
+    }
+}
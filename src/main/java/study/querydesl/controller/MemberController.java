@@ -1,16 +1,40 @@
 package study.querydesl.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.data.web.SpringDataWebProperties;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydesl.dto.BulkIngestResult;
+import study.querydesl.dto.CursorResult;
+import study.querydesl.dto.MemberIngestRequest;
 import study.querydesl.dto.MemberSearchCondition;
 import study.querydesl.dto.MemberTeamDto;
+import study.querydesl.repository.MemberColumnarRepository;
 import study.querydesl.repository.MemberJpaRepository;
 import study.querydesl.repository.MemberRepository;
+import study.querydesl.repository.MemberRepositoryCustom;
+import study.querydesl.repository.MemberSearchCache;
+import study.querydesl.repository.support.CacheStats;
+import study.querydesl.service.MemberBulkIngestService;
+import study.querydesl.service.MemberExportService;
+import study.querydesl.web.MemberResponseCache;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequiredArgsConstructor
@@ -18,6 +42,12 @@ public class MemberController {
 
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final MemberExportService memberExportService;
+    private final MemberBulkIngestService memberBulkIngestService;
+    private final MemberSearchCache memberSearchCache;
+    private final ObjectProvider<MemberColumnarRepository> memberColumnarRepository;
+    private final MemberResponseCache memberResponseCache;
+    private final SpringDataWebProperties springDataWebProperties;
 
     // @RequestParam 생략 가능 ?
     @GetMapping("/v1/members")
@@ -25,14 +55,105 @@ public class MemberController {
         return memberJpaRepository.search(condition);
     }
 
+    // fields=memberId,username 처럼 필요한 필드만 조회 (team 필드/조건이 없으면 team 조인 없음)
+    @GetMapping(value = "/v1/members", params = "fields")
+    public List<Map<String, Object>> searchMemberFieldsV1(MemberSearchCondition condition,
+                                                          @RequestParam List<String> fields) {
+        return memberJpaRepository.searchFields(condition, fields);
+    }
+
+    // v1 과 같은 조건이지만 전체를 메모리에 올리지 않고 NDJSON 으로 흘려보낸다.
+    @GetMapping(value = "/v1/members/stream", produces = "application/x-ndjson")
+    public void streamMemberV1(MemberSearchCondition condition, HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        memberExportService.exportNdjson(condition, response.getOutputStream());
+    }
+
+    // v1 과 같은 JSON 배열이지만 결과를 List 로 모으지 않고 조회하면서 바로 쓴다.
+    @GetMapping(value = "/v1/members/stream-json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void streamMemberJsonV1(MemberSearchCondition condition, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        memberExportService.exportJson(condition, response.getOutputStream());
+    }
 
-    // 스프링 데이터 페이징 활용
+
+    // 스프링 데이터 페이징 활용 (직렬화된 응답을 캐시하고 ETag/If-None-Match 를 지원)
+    // 응답 캐시로 직접 썼으면 null 을 반환한다. (HttpServletResponse 파라미터가 있어서 처리 완료로 본다)
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageSimple(condition, pageable);
+    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable,
+                                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!memberResponseCache.canServe(request)) {
+            return memberRepository.searchPageSimple(condition, pageable);
+        }
+        memberResponseCache.write("v2", condition.normalized(), pageable,
+                () -> memberRepository.searchPageSimple(condition, pageable), request, response);
+        return null;
     }
+    // estimated=true 면 정확한 count 대신 추정 건수를 반환 (응답의 estimated 플래그로 구분)
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+                                              @RequestParam(defaultValue = "false") boolean estimated,
+                                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Supplier<Page<MemberTeamDto>> loader = estimated
+                ? () -> memberRepository.searchPageEstimated(condition, pageable)
+                : () -> memberRepository.searchPageComplex(condition, pageable);
+        if (!memberResponseCache.canServe(request)) {
+            return loader.get();
+        }
+        memberResponseCache.write(estimated ? "v3-estimated" : "v3", condition.normalized(), pageable,
+                loader, request, response);
+        return null;
+    }
+
+    // 커서 기반 페이징 (응답의 nextCursor 를 다음 요청 cursor 로 전달)
+    // size 는 페이지 API(Pageable)와 같은 최대 크기(spring.data.web.pageable.max-page-size)로 제한한다.
+    @GetMapping("/v4/members")
+    public CursorResult<MemberTeamDto> searchMemberV4(MemberSearchCondition condition,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "20") int size) {
+        if (size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be greater than zero");
+        }
+        int maxSize = springDataWebProperties.getPageable().getMaxPageSize();
+        return memberRepository.searchByCursor(condition, cursor, Math.min(size, maxSize));
+    }
+
+    // count 쿼리 없이 다음 페이지 여부만 반환 (무한 스크롤)
+    @GetMapping("/v5/members")
+    public Slice<MemberTeamDto> searchMemberV5(MemberSearchCondition condition, Pageable pageable) {
+        return memberRepository.searchSlice(condition, pageable);
+    }
+
+    // member.columnar.enabled=true 면 메모리 컬럼 저장소에서 조회, 아니면 v3 와 같다.
+    @GetMapping("/v6/members")
+    public Page<MemberTeamDto> searchMemberV6(MemberSearchCondition condition, Pageable pageable) {
+        MemberRepositoryCustom repository = memberColumnarRepository.getIfAvailable(() -> memberRepository);
+        return repository.searchPageComplex(condition, pageable);
+    }
+
+    // 대량 저장 (JSON 배열)
+    @PostMapping(value = "/v1/members/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BulkIngestResult bulkInsertV1(@RequestBody List<MemberIngestRequest> requests) {
+        return memberBulkIngestService.ingest(requests.iterator());
+    }
+
+    // 대량 저장 (NDJSON, 요청 본문을 스트리밍으로 읽음)
+    @PostMapping(value = "/v1/members/bulk", consumes = "application/x-ndjson")
+    public BulkIngestResult bulkInsertNdjsonV1(HttpServletRequest request) throws IOException {
+        return memberBulkIngestService.ingestNdjson(request.getInputStream());
+    }
+
+    // 검색 결과 캐시 적중/미스/제거 횟수
+    @GetMapping("/v1/members/search-cache/stats")
+    public CacheStats searchCacheStats() {
+        return memberSearchCache.stats();
+    }
+
+    // 응답 캐시(/v2, /v3) 적중/미스/제거 횟수
+    @GetMapping("/v1/members/response-cache/stats")
+    public CacheStats responseCacheStats() {
+        return memberResponseCache.stats();
     }
- }
+}
@@ -0,0 +1,28 @@
+package study.querydesl.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import study.querydesl.repository.support.ResultLimitExceededException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 최대 건수 초과는 기본 에러 응답에 메시지가 빠지므로(server.error.include-message) 페이징 안내를 직접 본문에 담는다.
+ */
+@RestControllerAdvice
+public class ResultLimitExceptionHandler {
+
+    @ExceptionHandler(ResultLimitExceededException.class)
+    public ResponseEntity<Map<String, Object>> resultLimitExceeded(ResultLimitExceededException e) {
+        HttpStatus status = HttpStatus.UNPROCESSABLE_ENTITY;
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", e.getMessage());
+        body.put("maxResults", e.getMaxResults());
+        return ResponseEntity.status(status).body(body);
+    }
+}
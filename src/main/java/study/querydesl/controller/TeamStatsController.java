@@ -0,0 +1,40 @@
+package study.querydesl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydesl.dto.TeamStatsDto;
+import study.querydesl.repository.TeamStatsRepository;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamStatsController {
+
+    private final TeamStatsRepository teamStatsRepository;
+
+    @GetMapping("/v1/team-stats")
+    public List<TeamStatsDto> teamStats() {
+        return teamStatsRepository.findAll();
+    }
+
+    @GetMapping("/v1/team-stats/{teamId}")
+    public TeamStatsDto teamStats(@PathVariable Long teamId) {
+        return teamStatsRepository.findByTeamId(teamId);
+    }
+
+    // 통계 테이블을 member group by 결과로 다시 만든다.
+    @PostMapping("/v1/team-stats/rebuild")
+    public void rebuild() {
+        teamStatsRepository.rebuild();
+    }
+
+    // 통계가 실제 group by 결과와 다른 팀 id 목록 (비어 있으면 정상)
+    @GetMapping("/v1/team-stats/check")
+    public List<Long> check() {
+        return teamStatsRepository.findInconsistent();
+    }
+}
@@ -0,0 +1,20 @@
+package study.querydesl.dto;
+
+import lombok.Getter;
+
+/**
+ * 대량 저장 결과 (처리 건수, 소요 시간, 초당 처리 건수)
+ */
+@Getter
+public class BulkIngestResult {
+
+    private final long count;
+    private final long elapsedMillis;
+    private final double rowsPerSecond;
+
+    public BulkIngestResult(long count, long elapsedNanos) {
+        this.count = count;
+        this.elapsedMillis = elapsedNanos / 1_000_000;
+        this.rowsPerSecond = elapsedNanos == 0 ? 0 : count * 1_000_000_000.0 / elapsedNanos;
+    }
+}
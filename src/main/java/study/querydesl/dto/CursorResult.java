@@ -0,0 +1,23 @@
+package study.querydesl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 커서(keyset) 기반 조회 결과
+ * : nextCursor 를 다음 요청의 cursor 로 그대로 넘기면 된다. (마지막 페이지면 null)
+ */
+@Getter
+public class CursorResult<T> {
+
+    private final List<T> content;
+    private final String nextCursor;
+    private final boolean hasNext;
+
+    public CursorResult(List<T> content, String nextCursor, boolean hasNext) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+}
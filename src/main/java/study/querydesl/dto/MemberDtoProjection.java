@@ -0,0 +1,19 @@
+package study.querydesl.dto;
+
+import com.querydsl.core.types.Expression;
+import study.querydesl.repository.support.RowProjection;
+
+/**
+ * QMemberDto 대신 쓰는 리플렉션 없는 프로젝션
+ */
+public class MemberDtoProjection extends RowProjection<MemberDto> {
+
+    public MemberDtoProjection(Expression<String> username, Expression<Integer> age) {
+        super(MemberDto.class, username, age);
+    }
+
+    @Override
+    public MemberDto newInstance(Object... row) {
+        return new MemberDto((String) row[0], intValue(row[1]));
+    }
+}
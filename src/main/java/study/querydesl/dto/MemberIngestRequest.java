@@ -0,0 +1,20 @@
+package study.querydesl.dto;
+
+import lombok.Data;
+
+@Data
+public class MemberIngestRequest {
+
+    private String username;
+    private int age;
+    private String teamName;
+
+    public MemberIngestRequest() {
+    }
+
+    public MemberIngestRequest(String username, int age, String teamName) {
+        this.username = username;
+        this.age = age;
+        this.teamName = teamName;
+    }
+}
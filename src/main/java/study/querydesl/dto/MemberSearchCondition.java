@@ -1,14 +1,39 @@
 package study.querydesl.dto;
 
 import lombok.Data;
+import study.querydesl.repository.support.SearchField;
+
+import static org.springframework.util.StringUtils.hasText;
 
 @Data
 public class MemberSearchCondition {
     // 회원명, 팀명, 나이(ageGoe, ageLoe)
 
+    @SearchField(path = "username")
     private String username;
+
+    @SearchField(path = "team.name")
     private String teamName;
+
+    @SearchField(path = "age", op = SearchField.Op.GOE)
     private Integer ageGoe;
+
+    @SearchField(path = "age", op = SearchField.Op.LOE)
     private Integer ageLoe;
 
+    // 회원명 부분 검색 (대소문자 구분 없음): 트라이그램 인덱스(MemberUsernameIndex)로 처리하므로 @SearchField 가 아니다.
+    private String usernameContains;
+
+    /**
+     * 캐시 키로 쓰기 위해 빈 문자열 등 조회에 영향이 없는 값을 null 로 맞춘 복사본
+     */
+    public MemberSearchCondition normalized() {
+        MemberSearchCondition normalized = new MemberSearchCondition();
+        normalized.setUsername(hasText(username) ? username : null);
+        normalized.setTeamName(hasText(teamName) ? teamName : null);
+        normalized.setAgeGoe(ageGoe);
+        normalized.setAgeLoe(ageLoe);
+        normalized.setUsernameContains(hasText(usernameContains) ? usernameContains : null);
+        return normalized;
+    }
 }
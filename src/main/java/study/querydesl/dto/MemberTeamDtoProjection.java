@@ -0,0 +1,20 @@
+package study.querydesl.dto;
+
+import com.querydsl.core.types.Expression;
+import study.querydesl.repository.support.RowProjection;
+
+/**
+ * QMemberTeamDto 대신 쓰는 리플렉션 없는 프로젝션
+ */
+public class MemberTeamDtoProjection extends RowProjection<MemberTeamDto> {
+
+    public MemberTeamDtoProjection(Expression<Long> memberId, Expression<String> username, Expression<Integer> age,
+                                   Expression<Long> teamId, Expression<String> teamName) {
+        super(MemberTeamDto.class, memberId, username, age, teamId, teamName);
+    }
+
+    @Override
+    public MemberTeamDto newInstance(Object... row) {
+        return new MemberTeamDto((Long) row[0], (String) row[1], intValue(row[2]), (Long) row[3], (String) row[4]);
+    }
+}
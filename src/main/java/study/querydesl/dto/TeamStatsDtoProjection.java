@@ -0,0 +1,22 @@
+package study.querydesl.dto;
+
+import com.querydsl.core.types.Expression;
+import study.querydesl.repository.support.RowProjection;
+
+/**
+ * QTeamStatsDto 대신 쓰는 리플렉션 없는 프로젝션
+ */
+public class TeamStatsDtoProjection extends RowProjection<TeamStatsDto> {
+
+    public TeamStatsDtoProjection(Expression<Long> teamId, Expression<String> teamName,
+                                  Expression<Long> memberCount, Expression<Long> ageSum,
+                                  Expression<Integer> ageMin, Expression<Integer> ageMax) {
+        super(TeamStatsDto.class, teamId, teamName, memberCount, ageSum, ageMin, ageMax);
+    }
+
+    @Override
+    public TeamStatsDto newInstance(Object... row) {
+        return new TeamStatsDto((Long) row[0], (String) row[1], longValue(row[2]), longValue(row[3]),
+                (Integer) row[4], (Integer) row[5]);
+    }
+}
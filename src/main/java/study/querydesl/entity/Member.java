@@ -5,22 +5,49 @@ import lombok.*;
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_team_age", columnList = "team_id, age"),
+        @Index(name = "idx_member_age", columnList = "age"),
+        @Index(name = "idx_member_team_name", columnList = "team_name")
+})
+@EntityListeners(MemberEntityListener.class)
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Getter @Setter
 @ToString(of = {"id", "username", "age"})
 public class Member {
 
-    @Id @GeneratedValue
+    // pooled-lo 옵티마이저로 시퀀스 한 번에 allocationSize 개씩 id 를 할당 (application.yml 참고)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq")
+    @SequenceGenerator(name = "member_seq", sequenceName = "member_seq", allocationSize = 100)
     @Column(name = "member_id")
     private Long id;
 
     private String username;
     private int age;
 
+    // team 과 teamName 은 함께 바뀌어야 하므로 setter 없이 changeTeam/assignTeam 으로만 변경
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
+    @Setter(AccessLevel.NONE)
     private Team team;
 
+    // 조회용 비정규화 컬럼 (team.name 복사본): 검색 시 team 조인을 생략하기 위해 사용
+    // changeTeam, TeamService.rename 에서 함께 변경한다.
+    @Column(name = "team_name")
+    @Setter(AccessLevel.NONE)
+    private String teamName;
+
+    // 마지막으로 DB 와 맞춘(로딩/저장/수정) 팀과 나이: 변경 이벤트에 변경 전 값을 담기 위해 사용
+    @Transient
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private Long syncedTeamId;
+
+    @Transient
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private Integer syncedAge;
+
     public Member(String username) {
         this(username, 0);
     }
@@ -40,7 +67,29 @@ public class Member {
 
     public void changeTeam(Team team) {
         this.team = team;
+        this.teamName = team.getName();
         team.getMembers().add(this);
     }
 
+    /**
+     * 대량 저장용: team.members 컬렉션을 건드리지 않고 FK 와 팀 이름 복사본만 설정
+     * (team 은 getReference 프록시여도 되도록 이름을 따로 받는다)
+     */
+    public void assignTeam(Team team, String teamName) {
+        this.team = team;
+        this.teamName = teamName;
+    }
+
+    Long getSyncedTeamId() {
+        return syncedTeamId;
+    }
+
+    Integer getSyncedAge() {
+        return syncedAge;
+    }
+
+    void markSynced() {
+        this.syncedTeamId = team != null ? team.getId() : null;
+        this.syncedAge = age;
+    }
 }
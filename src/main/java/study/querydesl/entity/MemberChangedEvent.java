@@ -0,0 +1,191 @@
+package study.querydesl.entity;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 회원 변경 이벤트
+ * : 엔티티 콜백(MemberEntityListener)이나 벌크 연산에서 발행하고, 캐시 등은 이 이벤트를 받아서 무효화한다.
+ * 벌크 연산은 어떤 회원이 바뀌었는지 알 수 없으므로 memberId 가 null 이다.
+ * <p>
+ * 팀 통계(TeamStats), 메모리 인덱스 증분 반영을 위해 변경 전/후 팀과 나이, 변경 후 회원명을 함께 담는다.
+ * (저장은 변경 전 값이 없고, 삭제는 변경 후 값이 없다.)
+ * <p>
+ * 벌크 이벤트는 받는 쪽이 필요한 만큼만 다시 읽도록 아는 범위를 함께 담는다.
+ * - changes: 바뀐 컬럼/연산 (회원명만 바꿨으면 팀 통계, 나이 인덱스는 할 일이 없다)
+ * - idFrom(초과) ~ idTo(이하): 바뀐 회원 id 구간 (null 이면 그쪽으로 끝이 없음)
+ * - bulkTeamIds: 통계가 바뀌었을 수 있는 팀 (null 이면 알 수 없음 = 전체)
+ * - teamDeltas: 대량 저장에서 팀별로 추가된 회원 합계 (다시 집계하지 않고 더하면 된다)
+ * bulk() 는 아무것도 모를 때 사용한다.
+ */
+@Getter
+@ToString
+public class MemberChangedEvent {
+
+    public enum Type {
+        SAVED, UPDATED, REMOVED, BULK
+    }
+
+    // 벌크 연산에서 바뀐 것
+    public enum Change {
+        USERNAME, AGE, TEAM, TEAM_NAME, INSERT, DELETE
+    }
+
+    private final Type type;
+    private final Long memberId;
+
+    private final Long previousTeamId;
+    private final Integer previousAge;
+    private final Long teamId;
+    private final Integer age;
+    private final String username;
+
+    private final Set<Change> changes;
+    private final Long idFrom;
+    private final Long idTo;
+    private final Set<Long> bulkTeamIds;
+    private final Map<Long, TeamDelta> teamDeltas;
+
+    private MemberChangedEvent(Type type, Long memberId, Long previousTeamId, Integer previousAge,
+                               Long teamId, Integer age, String username) {
+        this(type, memberId, previousTeamId, previousAge, teamId, age, username, null, null, null, null, null);
+    }
+
+    private MemberChangedEvent(Type type, Long memberId, Long previousTeamId, Integer previousAge,
+                               Long teamId, Integer age, String username,
+                               Set<Change> changes, Long idFrom, Long idTo,
+                               Set<Long> bulkTeamIds, Map<Long, TeamDelta> teamDeltas) {
+        this.type = type;
+        this.memberId = memberId;
+        this.previousTeamId = previousTeamId;
+        this.previousAge = previousAge;
+        this.teamId = teamId;
+        this.age = age;
+        this.username = username;
+        this.changes = changes;
+        this.idFrom = idFrom;
+        this.idTo = idTo;
+        this.bulkTeamIds = bulkTeamIds;
+        this.teamDeltas = teamDeltas;
+    }
+
+    public static MemberChangedEvent saved(Long memberId) {
+        return new MemberChangedEvent(Type.SAVED, memberId, null, null, null, null, null);
+    }
+
+    public static MemberChangedEvent saved(Long memberId, String username, Long teamId, int age) {
+        return new MemberChangedEvent(Type.SAVED, memberId, null, null, teamId, age, username);
+    }
+
+    public static MemberChangedEvent updated(Long memberId) {
+        return new MemberChangedEvent(Type.UPDATED, memberId, null, null, null, null, null);
+    }
+
+    public static MemberChangedEvent updated(Long memberId, String username, Long previousTeamId, Integer previousAge,
+                                             Long teamId, int age) {
+        return new MemberChangedEvent(Type.UPDATED, memberId, previousTeamId, previousAge, teamId, age, username);
+    }
+
+    public static MemberChangedEvent removed(Long memberId) {
+        return new MemberChangedEvent(Type.REMOVED, memberId, null, null, null, null, null);
+    }
+
+    public static MemberChangedEvent removed(Long memberId, Long teamId, Integer age) {
+        return new MemberChangedEvent(Type.REMOVED, memberId, teamId, age, null, null, null);
+    }
+
+    public static MemberChangedEvent bulk() {
+        return new MemberChangedEvent(Type.BULK, null, null, null, null, null, null,
+                EnumSet.allOf(Change.class), null, null, null, null);
+    }
+
+    /**
+     * 벌크 update/delete
+     * @param teamIds 통계가 바뀌었을 수 있는 팀 (null 이면 알 수 없음)
+     */
+    public static MemberChangedEvent bulk(Set<Change> changes, Long idFrom, Long idTo, Collection<Long> teamIds) {
+        return new MemberChangedEvent(Type.BULK, null, null, null, null, null, null,
+                EnumSet.copyOf(changes), idFrom, idTo, teamIds == null ? null : new TreeSet<>(teamIds), null);
+    }
+
+    /**
+     * 대량 저장: id 구간과 팀별로 추가된 회원 합계
+     */
+    public static MemberChangedEvent bulkInserted(Long idFrom, Long idTo, Map<Long, TeamDelta> teamDeltas) {
+        return new MemberChangedEvent(Type.BULK, null, null, null, null, null, null,
+                EnumSet.of(Change.INSERT), idFrom, idTo, new TreeSet<>(teamDeltas.keySet()),
+                Collections.unmodifiableMap(new HashMap<>(teamDeltas)));
+    }
+
+    /**
+     * 팀 이름 변경: 그 팀 회원의 (비정규화된) 팀 이름만 바뀐다.
+     */
+    public static MemberChangedEvent teamRenamed(Long teamId) {
+        return new MemberChangedEvent(Type.BULK, null, null, null, null, null, null,
+                EnumSet.of(Change.TEAM_NAME), null, null, Collections.singleton(teamId), null);
+    }
+
+    public boolean isBulk() {
+        return type == Type.BULK;
+    }
+
+    /**
+     * 벌크 이벤트에서 이 중 하나라도 바뀌었으면 true (단건 이벤트는 항상 true)
+     */
+    public boolean hasAnyChange(Change... candidates) {
+        if (changes == null) {
+            return true;
+        }
+        for (Change candidate : candidates) {
+            if (changes.contains(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 벌크 이벤트의 id 구간을 알면 true
+     */
+    public boolean hasIdRange() {
+        return idFrom != null || idTo != null;
+    }
+
+    /**
+     * 팀별 회원 추가 합계 (회원 수, 나이 합, 최소/최대 나이)
+     */
+    @Getter
+    @ToString
+    public static class TeamDelta {
+        private long count;
+        private long ageSum;
+        private Integer ageMin;
+        private Integer ageMax;
+
+        public void add(int age) {
+            count++;
+            ageSum += age;
+            ageMin = ageMin == null ? age : Math.min(ageMin, age);
+            ageMax = ageMax == null ? age : Math.max(ageMax, age);
+        }
+
+        public void merge(TeamDelta other) {
+            count += other.count;
+            ageSum += other.ageSum;
+            if (other.ageMin != null) {
+                ageMin = ageMin == null ? other.ageMin : Math.min(ageMin, other.ageMin);
+            }
+            if (other.ageMax != null) {
+                ageMax = ageMax == null ? other.ageMax : Math.max(ageMax, other.ageMax);
+            }
+        }
+    }
+}
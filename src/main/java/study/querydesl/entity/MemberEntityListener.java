@@ -0,0 +1,71 @@
+package study.querydesl.entity;
+
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import java.util.function.Supplier;
+
+/**
+ * Member 엔티티 변경을 스프링 이벤트로 전달
+ * : 스프링 부트가 하이버네이트에 SpringBeanContainer 를 설정해 주기 때문에 생성자 주입이 가능하다.
+ * MemberJpaRepository.save, 스프링 데이터 save, 변경 감지(changeTeam 등) 모두 여기로 들어온다.
+ */
+public class MemberEntityListener {
+
+    private static final ThreadLocal<Boolean> SUPPRESSED = ThreadLocal.withInitial(() -> false);
+
+    private final ApplicationEventPublisher publisher;
+
+    public MemberEntityListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * 대량 저장처럼 한 건씩 이벤트를 보낼 필요가 없을 때 사용
+     * : 대신 작업이 끝나면 MemberChangedEvent.bulk() 를 직접 발행해야 한다.
+     */
+    public static <T> T withoutEvents(Supplier<T> work) {
+        boolean previous = SUPPRESSED.get();
+        SUPPRESSED.set(true);
+        try {
+            return work.get();
+        } finally {
+            SUPPRESSED.set(previous);
+        }
+    }
+
+    @PostLoad
+    public void postLoad(Member member) {
+        member.markSynced();
+    }
+
+    @PostPersist
+    public void postPersist(Member member) {
+        member.markSynced();
+        publish(MemberChangedEvent.saved(member.getId(), member.getUsername(),
+                member.getSyncedTeamId(), member.getAge()));
+    }
+
+    @PostUpdate
+    public void postUpdate(Member member) {
+        Long previousTeamId = member.getSyncedTeamId();
+        Integer previousAge = member.getSyncedAge();
+        member.markSynced();
+        publish(MemberChangedEvent.updated(member.getId(), member.getUsername(), previousTeamId, previousAge,
+                member.getSyncedTeamId(), member.getAge()));
+    }
+
+    @PostRemove
+    public void postRemove(Member member) {
+        publish(MemberChangedEvent.removed(member.getId(), member.getSyncedTeamId(), member.getSyncedAge()));
+    }
+
+    private void publish(MemberChangedEvent event) {
+        if (!SUPPRESSED.get()) {
+            publisher.publishEvent(event);
+        }
+    }
+}
@@ -7,14 +7,21 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners(TeamEntityListener.class)
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Getter @Setter
 @ToString(of = {"id", "name"})
 public class Team {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq")
+    @SequenceGenerator(name = "team_seq", sequenceName = "team_seq", allocationSize = 100)
     @Column(name = "team_id")
     private Long id;
+
+    // 회원의 team_name 복사본과 함께 바뀌어야 하므로 TeamService.rename 으로만 변경
+    @Setter(AccessLevel.NONE)
     private String name;
 
     @OneToMany(mappedBy = "team")
@@ -23,4 +30,11 @@ public class Team {
     public Team(String name) {
         this.name = name;
     }
+
+    /**
+     * 이름만 바꾼다. 회원의 team_name 은 바꾸지 않으므로 TeamService.rename 을 통해서 호출한다.
+     */
+    public void rename(String name) {
+        this.name = name;
+    }
 }
@@ -0,0 +1,17 @@
+package study.querydesl.entity;
+
+import lombok.Getter;
+
+/**
+ * 팀 변경 이벤트
+ * : TeamEntityListener 가 팀 저장/변경/삭제 시 발행한다. 회원 검색 결과에는 팀 이름이 들어가므로 응답 캐시 등이 이 이벤트로 무효화한다.
+ */
+@Getter
+public class TeamChangedEvent {
+
+    private final Long teamId;
+
+    public TeamChangedEvent(Long teamId) {
+        this.teamId = teamId;
+    }
+}
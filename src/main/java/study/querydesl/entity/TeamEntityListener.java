@@ -0,0 +1,26 @@
+package study.querydesl.entity;
+
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Team 엔티티 변경을 스프링 이벤트로 전달 (MemberEntityListener 와 같은 방식)
+ */
+public class TeamEntityListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    public TeamEntityListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Team team) {
+        publisher.publishEvent(new TeamChangedEvent(team.getId()));
+    }
+}
@@ -0,0 +1,86 @@
+package study.querydesl.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.querydesl.dto.MemberSearchCondition;
+import study.querydesl.entity.MemberChangedEvent;
+import study.querydesl.entity.MemberChangedEvent.Change;
+import study.querydesl.repository.support.IntRangeIndex;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydesl.entity.QMember.member;
+
+/**
+ * 나이 -> 회원 id 메모리 인덱스
+ * : 나이 조건만 있는 검색은 DB 대신 여기서 건수와 페이지 id 를 구한다. (searchPageComplex)
+ * 나이가 바뀌지 않는 벌크 연산(회원명 변경 등)은 무시하고, 나이 변경/저장/삭제는 그 id 구간만 다시 읽는다. (MemberMemoryIndex)
+ */
+@Component
+public class MemberAgeIndex extends MemberMemoryIndex<IntRangeIndex, Integer> {
+
+    public MemberAgeIndex(EntityManager em, PlatformTransactionManager transactionManager,
+                          MemberWriteTracker writeTracker,
+                          @Value("${member.age-index.enabled:true}") boolean enabled,
+                          @Value("${member.age-index.load-fetch-size:1000}") int loadFetchSize) {
+        super(em, transactionManager, writeTracker, IntRangeIndex::new, member.age, enabled, loadFetchSize,
+                "member-age-index-", Change.AGE, Change.INSERT, Change.DELETE);
+    }
+
+    /**
+     * 인덱스로 처리할 수 있는 조건인지 (나이 조건만 있음)
+     */
+    public boolean canServe(MemberSearchCondition condition) {
+        return !hasText(condition.getUsername())
+                && !hasText(condition.getUsernameContains())
+                && !hasText(condition.getTeamName())
+                && (condition.getAgeGoe() != null || condition.getAgeLoe() != null)
+                && isUsable();
+    }
+
+    public long count(Integer ageGoe, Integer ageLoe) {
+        return index().count(from(ageGoe), to(ageLoe));
+    }
+
+    /**
+     * (나이, id) 순서로 offset 번째부터 limit 개의 회원 id
+     */
+    public long[] ids(Integer ageGoe, Integer ageLoe, long offset, int limit) {
+        return index().range(from(ageGoe), to(ageLoe), offset, limit);
+    }
+
+    @Override
+    protected Integer valueOf(MemberChangedEvent event) {
+        return event.getAge();
+    }
+
+    @Override
+    protected void put(IntRangeIndex index, long id, Integer age) {
+        index.put(id, age);
+    }
+
+    @Override
+    protected void remove(IntRangeIndex index, long id) {
+        index.remove(id);
+    }
+
+    @Override
+    protected void replaceRange(IntRangeIndex index, long afterId, long lastId, long[] ids, List<Integer> ages) {
+        int[] keys = new int[ages.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ages.get(i);
+        }
+        index.replaceRange(afterId, lastId, ids, keys);
+    }
+
+    private static int from(Integer ageGoe) {
+        return ageGoe != null ? ageGoe : Integer.MIN_VALUE;
+    }
+
+    private static int to(Integer ageLoe) {
+        return ageLoe != null ? ageLoe : Integer.MAX_VALUE;
+    }
+}
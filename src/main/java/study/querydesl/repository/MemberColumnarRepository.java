@@ -0,0 +1,241 @@
+package study.querydesl.repository;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import study.querydesl.dto.CursorResult;
+import study.querydesl.dto.MemberSearchCondition;
+import study.querydesl.dto.MemberTeamDto;
+import study.querydesl.dto.MemberTeamDtoProjection;
+import study.querydesl.entity.MemberChangedEvent;
+import study.querydesl.repository.support.CursorToken;
+import study.querydesl.repository.support.EstimatedPage;
+import study.querydesl.repository.support.ResultLimit;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static study.querydesl.entity.QMember.member;
+import static study.querydesl.entity.QTeam.team;
+
+/**
+ * DB 대신 메모리의 컬럼 저장소(MemberColumnarStore)에서 검색하는 MemberRepositoryCustom 구현
+ * : member.columnar.enabled=true 일 때만 등록된다.
+ * 기동 시 전체 회원을 읽어 오고, 이후에는 회원 변경 이벤트가 커밋되면
+ * 회원 한 명의 변경은 이벤트 값으로 바로 반영하고(팀명을 모를 때만 그 회원을 다시 읽는다),
+ * 벌크 변경은 해당 구간/팀(팀을 모르면 전체)만 다시 읽는다.
+ * 따라서 커밋 직후 아주 짧은 시간 동안은 이전 값이 보일 수 있다.
+ */
+@Repository
+@ConditionalOnProperty(name = "member.columnar.enabled", havingValue = "true")
+public class MemberColumnarRepository implements MemberRepositoryCustom {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ResultLimit resultLimit;
+    private final int loadFetchSize;
+
+    private volatile MemberColumnarStore store = new MemberColumnarStore();
+
+    public MemberColumnarRepository(EntityManager em, PlatformTransactionManager transactionManager,
+                                    ResultLimit resultLimit,
+                                    @Value("${member.columnar.load-fetch-size:1000}") int loadFetchSize) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // 커밋 후 이벤트에서 호출되므로 항상 새 트랜잭션으로 읽는다.
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.resultLimit = resultLimit;
+        this.loadFetchSize = loadFetchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        MemberColumnarStore loaded = new MemberColumnarStore();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<MemberTeamDto> rows = rows(null).stream()) {
+                rows.forEach(loaded::upsert);
+            }
+        });
+        store = loaded;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onMemberChanged(MemberChangedEvent event) {
+        if (!event.isBulk()) {
+            // MemberMemoryIndex 처럼 이벤트 값으로 바로 반영하고, 값이 없거나 팀명을 모를 때만 그 회원을 다시 읽는다.
+            if (applyInPlace(event)) {
+                return;
+            }
+            List<MemberTeamDto> rows = readOnlyTransaction.execute(status ->
+                    rows(member.id.eq(event.getMemberId())).fetch());
+            if (rows == null || rows.isEmpty()) {
+                store.remove(event.getMemberId());
+            } else {
+                store.upsert(rows.get(0));
+            }
+            return;
+        }
+
+        // id 구간을 알면 그 구간만 다시 읽고, 저장소에는 있지만 DB 에는 없는 회원은 지운다.
+        if (event.hasIdRange()) {
+            Long afterId = event.getIdFrom();
+            Long lastId = event.getIdTo();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                List<Long> before = store.idsInRange(afterId, lastId);
+                Set<Long> seen = new HashSet<>();
+                rows(idRange(afterId, lastId)).fetch().forEach(row -> {
+                    store.upsert(row);
+                    seen.add(row.getMemberId());
+                });
+                before.stream().filter(memberId -> !seen.contains(memberId)).forEach(store::remove);
+            });
+            return;
+        }
+
+        if (event.getBulkTeamIds() == null) {
+            reload();
+            return;
+        }
+
+        // 해당 팀의 회원을 다시 읽고, 저장소에는 그 팀으로 남아 있지만 DB 에서는 아닌 회원은 따로 확인한다.
+        Set<Long> teamIds = event.getBulkTeamIds();
+        // 팀 이름이 바뀌었을 수 있으므로 다시 읽을 때까지 이 팀들의 팀명은 이벤트 반영에 쓰지 않는다.
+        store.forgetTeams(teamIds);
+        readOnlyTransaction.executeWithoutResult(status -> {
+            List<Long> before = store.idsOfTeams(teamIds);
+            Set<Long> seen = new HashSet<>();
+            rows(member.team.id.in(teamIds)).fetch().forEach(row -> {
+                store.upsert(row);
+                seen.add(row.getMemberId());
+            });
+            for (Long memberId : before) {
+                if (!seen.contains(memberId)) {
+                    List<MemberTeamDto> current = rows(member.id.eq(memberId)).fetch();
+                    if (current.isEmpty()) {
+                        store.remove(memberId);
+                    } else {
+                        store.upsert(current.get(0));
+                    }
+                }
+            }
+        });
+    }
+
+    private boolean applyInPlace(MemberChangedEvent event) {
+        switch (event.getType()) {
+            case REMOVED:
+                store.remove(event.getMemberId());
+                return true;
+            case SAVED:
+            case UPDATED:
+                return event.getUsername() != null && event.getAge() != null
+                        && store.upsert(event.getMemberId(), event.getUsername(), event.getTeamId(), event.getAge());
+            default:
+                return false;
+        }
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        // 최대 건수를 넘었는지만 알면 되므로 max + 1 건까지만 모은다.
+        return resultLimit.check(store.search(filter(condition), 0, resultLimit.getMaxResults() + 1).content);
+    }
+
+    @Override
+    public List<MemberTeamDto> searchWithoutJoin(MemberSearchCondition condition) {
+        return search(condition);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        MemberColumnarStore.Matches matches = store.search(filter(condition), pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(matches.content, pageable, matches.total);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return searchPageSimple(condition, pageable);
+    }
+
+    // 메모리에서는 전체 건수를 세는 비용이 작으므로 항상 정확한 건수
+    @Override
+    public EstimatedPage<MemberTeamDto> searchPageEstimated(MemberSearchCondition condition, Pageable pageable) {
+        MemberColumnarStore.Matches matches = store.search(filter(condition), pageable.getOffset(), pageable.getPageSize());
+        return new EstimatedPage<>(matches.content, pageable, matches.total, false);
+    }
+
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        MemberColumnarStore.Matches matches = store.search(filter(condition), pageable.getOffset(), pageable.getPageSize());
+        boolean hasNext = pageable.getOffset() + matches.content.size() < matches.total;
+        return new SliceImpl<>(matches.content, pageable, hasNext);
+    }
+
+    @Override
+    public CursorResult<MemberTeamDto> searchByCursor(MemberSearchCondition condition, String cursor, int size) {
+        Assert.isTrue(size > 0, "Size must be greater than zero!");
+
+        List<MemberTeamDto> content = store.searchAfter(filter(condition), CursorToken.decode(cursor), size + 1);
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = new ArrayList<>(content.subList(0, size));
+        }
+        String nextCursor = hasNext ? CursorToken.encode(content.get(content.size() - 1).getMemberId()) : null;
+        return new CursorResult<>(content, nextCursor, hasNext);
+    }
+
+    private static MemberColumnarStore.Filter filter(MemberSearchCondition condition) {
+        MemberSearchCondition normalized = condition.normalized();
+        return new MemberColumnarStore.Filter(normalized.getUsername(), normalized.getUsernameContains(),
+                normalized.getTeamName(),
+                normalized.getAgeGoe(), normalized.getAgeLoe());
+    }
+
+    private static Predicate idRange(Long afterId, Long lastId) {
+        return ExpressionUtils.allOf(
+                afterId == null ? null : member.id.gt(afterId),
+                lastId == null ? null : member.id.loe(lastId));
+    }
+
+    private JPAQuery<MemberTeamDto> rows(Predicate where) {
+        return queryFactory
+                .select(new MemberTeamDtoProjection(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(where)
+                .orderBy(member.id.asc())
+                .setHint(QueryHints.FETCH_SIZE, loadFetchSize);
+    }
+}
@@ -0,0 +1,384 @@
+package study.querydesl.repository;
+
+import study.querydesl.dto.MemberTeamDto;
+import study.querydesl.repository.support.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * MemberTeamDto 를 컬럼별 primitive 배열로 들고 있는 메모리 저장소
+ * - id, 나이, 팀 id 는 long[]/int[] 에 그대로 저장
+ * - 회원명, 팀명은 사전(dictionary) 코드(int)로 저장: 문자열 비교 없이 코드 비교로 조건을 확인한다.
+ * - 팀명 코드별로 row 비트맵을 두어 팀 조건은 해당 비트만 훑는다.
+ * - 삭제는 live 비트만 끄고, 빈 row 가 절반을 넘으면 압축한다.
+ * - id -> row 는 박싱 없는 LongIntHashMap 으로 찾는다.
+ * 읽기는 동시에, 쓰기는 하나씩 (ReadWriteLock)
+ */
+class MemberColumnarStore {
+
+    private static final int NONE = -1;
+    private static final int NO_MATCH = -2;
+    private static final long NO_TEAM = Long.MIN_VALUE;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] ids = new long[1024];
+    private int[] ages = new int[1024];
+    private long[] teamIds = new long[1024];
+    private int[] usernames = new int[1024];
+    private int[] teamNames = new int[1024];
+    private int size;
+
+    private final BitSet live = new BitSet();
+    private LongIntHashMap rowById = new LongIntHashMap();
+    private final List<BitSet> rowsByTeamName = new ArrayList<>();
+    // 팀 id -> 팀명 코드: 이벤트로 받은 회원 변경에는 팀명이 없으므로 저장소에 있는 같은 팀의 이름을 쓴다.
+    private final LongIntHashMap teamNameByTeamId = new LongIntHashMap();
+
+    private final Dictionary usernameDictionary = new Dictionary();
+    private final Dictionary teamNameDictionary = new Dictionary();
+
+    /**
+     * 검색 조건 (username 같음, teamName 같음, ageGoe <= age <= ageLoe)
+     */
+    static class Filter {
+        final String username;
+        final String usernameContains;
+        final String teamName;
+        final int ageGoe;
+        final int ageLoe;
+
+        Filter(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+            this(username, null, teamName, ageGoe, ageLoe);
+        }
+
+        Filter(String username, String usernameContains, String teamName, Integer ageGoe, Integer ageLoe) {
+            this.username = username;
+            this.usernameContains = usernameContains;
+            this.teamName = teamName;
+            this.ageGoe = ageGoe != null ? ageGoe : Integer.MIN_VALUE;
+            this.ageLoe = ageLoe != null ? ageLoe : Integer.MAX_VALUE;
+        }
+    }
+
+    static class Matches {
+        final List<MemberTeamDto> content;
+        final long total;
+
+        Matches(List<MemberTeamDto> content, long total) {
+            this.content = content;
+            this.total = total;
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return live.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void upsert(MemberTeamDto dto) {
+        lock.writeLock().lock();
+        try {
+            int teamName = teamNameDictionary.encode(dto.getTeamName());
+            if (dto.getTeamId() != null) {
+                teamNameByTeamId.put(dto.getTeamId(), teamName);
+            }
+            upsertLocked(dto.getMemberId(), dto.getUsername(), dto.getTeamId(), teamName, dto.getAge());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 회원 변경 이벤트의 값(팀명 없음)으로 바로 반영
+     * : 저장소에 그 팀의 이름이 없으면 반영하지 않고 false (DB 에서 팀명까지 읽어서 upsert(dto) 해야 한다)
+     */
+    boolean upsert(long id, String username, Long teamId, int age) {
+        lock.writeLock().lock();
+        try {
+            int teamName = NONE;
+            if (teamId != null) {
+                teamName = teamNameByTeamId.get(teamId, NO_MATCH);
+                if (teamName == NO_MATCH) {
+                    return false;
+                }
+            }
+            upsertLocked(id, username, teamId, teamName, age);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 팀 이름이 바뀌었을 수 있는 팀: 그 팀의 회원을 다시 읽기 전까지 이벤트 값으로 반영하지 않는다.
+     */
+    void forgetTeams(Set<Long> teamIdSet) {
+        lock.writeLock().lock();
+        try {
+            teamIdSet.forEach(teamNameByTeamId::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void upsertLocked(long id, String username, Long teamId, int teamName, int age) {
+        int row = rowById.get(id, NONE);
+        if (row == NONE) {
+            row = append(id);
+        } else {
+            unindexTeam(row);
+        }
+        ages[row] = age;
+        teamIds[row] = teamId != null ? teamId : NO_TEAM;
+        usernames[row] = usernameDictionary.encode(username);
+        teamNames[row] = teamName;
+        indexTeam(row);
+    }
+
+    void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int row = rowById.get(id, NONE);
+            if (row == NONE) {
+                return;
+            }
+            rowById.remove(id);
+            unindexTeam(row);
+            live.clear(row);
+            if (size > 1024 && live.cardinality() < size / 2) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 조건에 맞는 row 중 offset 부터 limit 건과 전체 건수 (row 순서 = 저장 순서)
+     */
+    Matches search(Filter filter, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<MemberTeamDto> content = new ArrayList<>(Math.min(limit, 1024));
+            long total = 0;
+
+            BitSet candidates = candidates(filter);
+            int username = filter.username != null ? usernameDictionary.find(filter.username) : NONE;
+            BitSet containing = filter.usernameContains != null ? usernameDictionary.containing(filter.usernameContains) : null;
+            if (candidates == null || username == NO_MATCH) {
+                return new Matches(content, 0);
+            }
+
+            for (int row = candidates.nextSetBit(0); row >= 0; row = candidates.nextSetBit(row + 1)) {
+                if (matches(row, username, containing, filter)) {
+                    if (total >= offset && content.size() < limit) {
+                        content.add(toDto(row));
+                    }
+                    total++;
+                }
+            }
+            return new Matches(content, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 조건에 맞고 id 가 afterId 보다 큰 row 중 id 가 작은 순서로 limit 건 (커서 페이징)
+     */
+    List<MemberTeamDto> searchAfter(Filter filter, Long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet candidates = candidates(filter);
+            int username = filter.username != null ? usernameDictionary.find(filter.username) : NONE;
+            BitSet containing = filter.usernameContains != null ? usernameDictionary.containing(filter.usernameContains) : null;
+            if (candidates == null || username == NO_MATCH) {
+                return new ArrayList<>();
+            }
+
+            long after = afterId != null ? afterId : Long.MIN_VALUE;
+            // id 가 큰 것부터 빠지는 크기 limit 의 힙
+            PriorityQueue<Integer> smallest = new PriorityQueue<>(limit + 1, (a, b) -> Long.compare(ids[b], ids[a]));
+            for (int row = candidates.nextSetBit(0); row >= 0; row = candidates.nextSetBit(row + 1)) {
+                if (ids[row] > after && matches(row, username, containing, filter)) {
+                    smallest.add(row);
+                    if (smallest.size() > limit) {
+                        smallest.poll();
+                    }
+                }
+            }
+
+            MemberTeamDto[] result = new MemberTeamDto[smallest.size()];
+            for (int i = result.length - 1; i >= 0; i--) {
+                result[i] = toDto(smallest.poll());
+            }
+            return new ArrayList<>(Arrays.asList(result));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<Long> idsOfTeams(Set<Long> teamIdSet) {
+        lock.readLock().lock();
+        try {
+            List<Long> result = new ArrayList<>();
+            for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+                if (teamIds[row] != NO_TEAM && teamIdSet.contains(teamIds[row])) {
+                    result.add(ids[row]);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // afterId(초과, null 이면 처음부터) ~ lastId(이하, null 이면 끝까지)
+    List<Long> idsInRange(Long afterId, Long lastId) {
+        lock.readLock().lock();
+        try {
+            List<Long> result = new ArrayList<>();
+            for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+                if ((afterId == null || ids[row] > afterId) && (lastId == null || ids[row] <= lastId)) {
+                    result.add(ids[row]);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 팀 조건이 있으면 그 팀의 비트맵, 없으면 live 전체. 없는 팀이면 null
+    private BitSet candidates(Filter filter) {
+        if (filter.teamName == null) {
+            return live;
+        }
+        int teamName = teamNameDictionary.find(filter.teamName);
+        return teamName == NO_MATCH || teamName >= rowsByTeamName.size() ? null : rowsByTeamName.get(teamName);
+    }
+
+    private boolean matches(int row, int username, BitSet containing, Filter filter) {
+        int age = ages[row];
+        return (username == NONE || usernames[row] == username)
+                && (containing == null || usernames[row] != NONE && containing.get(usernames[row]))
+                && age >= filter.ageGoe
+                && age <= filter.ageLoe;
+    }
+
+    private MemberTeamDto toDto(int row) {
+        return new MemberTeamDto(
+                ids[row],
+                usernameDictionary.decode(usernames[row]),
+                ages[row],
+                teamIds[row] != NO_TEAM ? teamIds[row] : null,
+                teamNameDictionary.decode(teamNames[row]));
+    }
+
+    private int append(long id) {
+        if (size == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            teamIds = Arrays.copyOf(teamIds, capacity);
+            usernames = Arrays.copyOf(usernames, capacity);
+            teamNames = Arrays.copyOf(teamNames, capacity);
+        }
+        int row = size++;
+        ids[row] = id;
+        live.set(row);
+        rowById.put(id, row);
+        return row;
+    }
+
+    private void indexTeam(int row) {
+        int teamName = teamNames[row];
+        if (teamName == NONE) {
+            return;
+        }
+        while (rowsByTeamName.size() <= teamName) {
+            rowsByTeamName.add(new BitSet());
+        }
+        rowsByTeamName.get(teamName).set(row);
+    }
+
+    private void unindexTeam(int row) {
+        int teamName = teamNames[row];
+        if (teamName != NONE && teamName < rowsByTeamName.size()) {
+            rowsByTeamName.get(teamName).clear(row);
+        }
+    }
+
+    // 삭제된 row 를 제거하고 앞으로 당긴다. (사전은 그대로 유지)
+    private void compact() {
+        int target = 0;
+        for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+            ids[target] = ids[row];
+            ages[target] = ages[row];
+            teamIds[target] = teamIds[row];
+            usernames[target] = usernames[row];
+            teamNames[target] = teamNames[row];
+            target++;
+        }
+        size = target;
+
+        live.clear();
+        live.set(0, size);
+        rowById = new LongIntHashMap();
+        rowsByTeamName.forEach(BitSet::clear);
+        for (int row = 0; row < size; row++) {
+            rowById.put(ids[row], row);
+            indexTeam(row);
+        }
+    }
+
+    private static class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        private int encode(String value) {
+            if (value == null) {
+                return NONE;
+            }
+            return codes.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        private int find(String value) {
+            Integer code = codes.get(value);
+            return code != null ? code : NO_MATCH;
+        }
+
+        // 값에 keyword 가 포함된(대소문자 무시) 코드들. 사전은 서로 다른 값만 가지므로 row 수보다 작다.
+        private BitSet containing(String keyword) {
+            String lower = keyword.toLowerCase(Locale.ROOT);
+            BitSet result = new BitSet(values.size());
+            for (int code = 0; code < values.size(); code++) {
+                if (values.get(code).toLowerCase(Locale.ROOT).contains(lower)) {
+                    result.set(code);
+                }
+            }
+            return result;
+        }
+
+        private String decode(int code) {
+            return code == NONE ? null : values.get(code);
+        }
+    }
+}
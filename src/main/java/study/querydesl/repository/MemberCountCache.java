@@ -0,0 +1,74 @@
+package study.querydesl.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import study.querydesl.entity.MemberChangedEvent;
+import study.querydesl.entity.TeamChangedEvent;
+import study.querydesl.repository.support.CountCache;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * 회원 검색 count 캐시
+ * : 회원이 하나라도 바뀌면 어떤 조건의 건수가 바뀌었는지 알 수 없으므로 전부 무효화한다.
+ * 변경 시점에 한 번(조회 도중 변경된 값을 저장하지 않도록), 트랜잭션이 끝난 뒤(커밋/롤백)에 다시 한 번 무효화해야
+ * 다른 요청이 커밋 전 데이터로 채워 넣은 값이 남지 않는다.
+ * 변경한 트랜잭션 안의 count 는 롤백될 수 있는 값이므로 캐시를 읽지도 채우지도 않는다.
+ */
+@Component
+public class MemberCountCache extends CountCache {
+
+    private final MemberWriteTracker writeTracker;
+    private final int estimateCap;
+
+    public MemberCountCache(MemberWriteTracker writeTracker,
+                            @Value("${member.count-cache.ttl:30s}") Duration ttl,
+                            @Value("${member.count-cache.max-size:1000}") int maxSize,
+                            @Value("${member.count-cache.estimate-cap:1000}") int estimateCap) {
+        super(ttl, maxSize);
+        this.writeTracker = writeTracker;
+        this.estimateCap = estimateCap;
+    }
+
+    public int getEstimateCap() {
+        return estimateCap;
+    }
+
+    @Override
+    public long get(Object key, LongSupplier counter) {
+        if (writeTracker.hasPendingWrites()) {
+            return counter.getAsLong();
+        }
+        return super.get(key, counter);
+    }
+
+    @Override
+    public Estimate getEstimate(Object key) {
+        if (writeTracker.hasPendingWrites()) {
+            return null;
+        }
+        return super.getEstimate(key);
+    }
+
+    @Override
+    public void put(Object key, long count) {
+        if (!writeTracker.hasPendingWrites()) {
+            super.put(key, count);
+        }
+    }
+
+    @EventListener({MemberChangedEvent.class, TeamChangedEvent.class})
+    public void onChanged() {
+        invalidateAll();
+    }
+
+    @TransactionalEventListener(classes = {MemberChangedEvent.class, TeamChangedEvent.class},
+            phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onCompleted() {
+        invalidateAll();
+    }
+}
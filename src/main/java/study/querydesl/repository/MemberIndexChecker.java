@@ -0,0 +1,119 @@
+package study.querydesl.repository;
+
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.query.spi.HQLQueryPlan;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+import study.querydesl.dto.MemberSearchCondition;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static study.querydesl.repository.MemberRepositoryImpl.CONDITIONS;
+
+/**
+ * 검색 조건 shape 마다 H2 EXPLAIN 으로 실행 계획을 확인해서 테이블 풀 스캔을 하는 shape 를 찾는다.
+ * : MemberSearchCondition 에 조건을 추가했는데 인덱스를 추가하지 않으면 여기서 드러난다.
+ * querydsl.index-check.enabled=true 면 기동 시에 검사해서 경고 로그를 남긴다. (H2 에서만 동작)
+ */
+@Slf4j
+@Component
+public class MemberIndexChecker {
+
+    private static final String TABLE_SCAN = ".tableScan";
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    public MemberIndexChecker(EntityManager em, DataSource dataSource,
+                              @Value("${querydsl.index-check.enabled:false}") boolean enabled) {
+        this.em = em;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkOnStartup() {
+        if (!enabled || !isH2()) {
+            return;
+        }
+        tableScans().forEach((shape, plan) ->
+                log.warn("member search shape {} falls back to a table scan:\n{}", shape, plan));
+    }
+
+    /**
+     * 조건이 하나 이상 있는 shape 중 테이블 풀 스캔을 하는 shape 와 그 실행 계획
+     * (조건이 없는 shape 0 은 어차피 전체를 읽으므로 제외)
+     */
+    public Map<Long, String> tableScans() {
+        Map<Long, String> result = new LinkedHashMap<>();
+        explainAll().forEach((shape, plan) -> {
+            if (shape != 0 && plan.contains(TABLE_SCAN)) {
+                result.put(shape, plan);
+            }
+        });
+        return result;
+    }
+
+    public Map<Long, String> explainAll() {
+        JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+        long shapes = 1L << CONDITIONS.fieldCount(MemberSearchCondition.class);
+
+        Map<Long, String> plans = new LinkedHashMap<>();
+        for (long shape = 0; shape < shapes; shape++) {
+            plans.put(shape, explain(MemberRepositoryImpl.searchQuery(queryFactory, shape)));
+        }
+        return plans;
+    }
+
+    private String explain(JPAQuery<?> query) {
+        JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+        serializer.serialize(query.getMetadata(), false, null);
+
+        SessionFactoryImplementor sessionFactory =
+                em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        HQLQueryPlan queryPlan = sessionFactory.getQueryPlanCache()
+                .getHQLQueryPlan(serializer.toString(), false, Collections.emptyMap());
+
+        StringBuilder plan = new StringBuilder();
+        for (String sql : queryPlan.getSqlStrings()) {
+            // 파라미터 값은 실행 계획에 영향이 없으므로 null 로 채운다.
+            List<String> rows = jdbcTemplate.query("explain " + sql,
+                    ps -> {
+                        int count = ps.getParameterMetaData().getParameterCount();
+                        for (int i = 1; i <= count; i++) {
+                            ps.setObject(i, null);
+                        }
+                    },
+                    (rs, rowNum) -> rs.getString(1));
+            rows.forEach(plan::append);
+        }
+        return plan.toString();
+    }
+
+    private boolean isH2() {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                    DatabaseMetaData::getDatabaseProductName);
+            return "H2".equals(product);
+        } catch (MetaDataAccessException e) {
+            return false;
+        }
+    }
+}
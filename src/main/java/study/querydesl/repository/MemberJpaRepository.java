@@ -1,21 +1,44 @@
 package study.querydesl.repository;
 
 import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 import study.querydesl.dto.MemberSearchCondition;
 import study.querydesl.dto.MemberTeamDto;
-import study.querydesl.dto.QMemberTeamDto;
+import study.querydesl.dto.MemberTeamDtoProjection;
 import study.querydesl.entity.Member;
+import study.querydesl.entity.MemberChangedEvent;
+import study.querydesl.entity.MemberChangedEvent.Change;
 import study.querydesl.entity.QMember;
 import study.querydesl.entity.QTeam;
+import study.querydesl.repository.support.BulkProgress;
+import study.querydesl.repository.support.ChunkedBulkExecutor;
+import study.querydesl.repository.support.PredicateCompiler;
+import study.querydesl.repository.support.ResultLimit;
+import study.querydesl.repository.support.UnknownFieldException;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.springframework.util.StringUtils.*;
 import static study.querydesl.entity.QMember.*;
@@ -24,12 +47,36 @@ import static study.querydesl.entity.QTeam.*;
 @Repository
 public class MemberJpaRepository {
 
+    // searchFields 에서 선택할 수 있는 필드 (MemberTeamDto 의 속성 이름)
+    private static final Map<String, Expression<?>> SEARCH_FIELDS = new LinkedHashMap<>();
+
+    // MemberSearchCondition 의 @SearchField 로 조건 생성
+    private static final PredicateCompiler CONDITIONS = new PredicateCompiler(member, team);
+
+    static {
+        SEARCH_FIELDS.put("memberId", member.id);
+        SEARCH_FIELDS.put("username", member.username);
+        SEARCH_FIELDS.put("age", member.age);
+        SEARCH_FIELDS.put("teamId", member.team.id);
+        SEARCH_FIELDS.put("teamName", team.name);
+    }
+
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ResultLimit resultLimit;
+    private final ChunkedBulkExecutor chunkedBulkExecutor;
+    private final MemberUsernameIndex usernameIndex;
 
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em, ApplicationEventPublisher eventPublisher,
+                               ResultLimit resultLimit, ChunkedBulkExecutor chunkedBulkExecutor,
+                               MemberUsernameIndex usernameIndex) {
         this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.eventPublisher = eventPublisher;
+        this.resultLimit = resultLimit;
+        this.chunkedBulkExecutor = chunkedBulkExecutor;
+        this.usernameIndex = usernameIndex;
     }
 
     public void save(Member member) {
@@ -87,8 +134,12 @@ public class MemberJpaRepository {
             builder.and(member.age.loe(condition.getAgeLoe()));
         }
 
-        return queryFactory
-                .select(new QMemberTeamDto(
+        if (hasText(condition.getUsernameContains())) {
+            builder.and(usernameIndex.contains(condition.getUsernameContains()));
+        }
+
+        return resultLimit.fetch(queryFactory
+                .select(new MemberTeamDtoProjection(
                         member.id.as("memberId"),
                         member.username,
                         member.age,
@@ -97,16 +148,15 @@ public class MemberJpaRepository {
                 ))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(builder)
-                .fetch();
+                .where(builder));
     }
 
     /**
      * 동적 쿼리와 성능 최적화 조회 - where 절 파라미터 사용
      */
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
+        return resultLimit.fetch(queryFactory
+                .select(new MemberTeamDtoProjection(
                         member.id,
                         member.username,
                         member.age,
@@ -114,44 +164,201 @@ public class MemberJpaRepository {
                         team.name
                 )).from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+                .where(conditions(condition)));
+    }
+
+    /**
+     * search 와 같은 조건이지만 요청한 필드만 조회 (fields=memberId,username)
+     * : teamName 필드나 teamName 조건이 없으면 team 조인을 하지 않는다. (teamId 는 member 의 FK 컬럼으로 읽는다)
+     * 결과는 요청한 필드 순서대로의 Map 이다.
+     */
+    public List<Map<String, Object>> searchFields(MemberSearchCondition condition, Collection<String> fields) {
+        Set<String> requested = new LinkedHashSet<>();
+        for (String field : fields) {
+            if (hasText(field)) {
+                requested.add(field.trim());
+            }
+        }
+        // fields= 처럼 비어 있으면 전체 필드
+        List<String> names = new ArrayList<>(requested.isEmpty() ? SEARCH_FIELDS.keySet() : requested);
+        Expression<?>[] select = new Expression<?>[names.size()];
+        for (int i = 0; i < select.length; i++) {
+            select[i] = SEARCH_FIELDS.get(names.get(i));
+            if (select[i] == null) {
+                throw new UnknownFieldException(names.get(i), SEARCH_FIELDS.keySet());
+            }
+        }
+
+        JPAQuery<Tuple> query = queryFactory
+                .select(select)
+                .from(member);
+        if (names.contains("teamName")
+                || CONDITIONS.references(MemberSearchCondition.class, CONDITIONS.shapeOf(condition), team)) {
+            query.leftJoin(member.team, team);
+        }
+        List<Tuple> rows = resultLimit.fetch(query
+                .where(conditions(condition)));
+
+        List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < select.length; i++) {
+                values.put(names.get(i), row.get(i, Object.class));
+            }
+            result.add(values);
+        }
+        return result;
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
+    /**
+     * search 와 같은 조건이지만 전체를 메모리에 올리지 않고 커서로 조금씩 읽어온다.
+     * 반환된 Stream 은 트랜잭션 안에서 사용하고 반드시 close 해야 한다.
+     */
+    public Stream<MemberTeamDto> stream(MemberSearchCondition condition, int fetchSize) {
+        return streamQuery(condition)
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .stream();
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName): null;
+    /**
+     * stream 결과가 최대 건수(ResultLimit)를 넘으면 예외
+     * : 스트리밍은 쓰기 시작한 응답을 되돌릴 수 없으므로 쓰기 전에 확인한다.
+     */
+    public void checkResultLimit(MemberSearchCondition condition) {
+        resultLimit.checkBeforeStream(streamQuery(condition));
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    private JPAQuery<MemberTeamDto> streamQuery(MemberSearchCondition condition) {
+        return queryFactory
+                .select(new MemberTeamDtoProjection(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name
+                )).from(member)
+                .leftJoin(member.team, team)
+                .where(conditions(condition));
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    /**
+     * &#64;SearchField 조건 + 회원명 부분 검색 (team alias 로 left join 한 쿼리용)
+     */
+    private Predicate conditions(MemberSearchCondition condition) {
+        return ExpressionUtils.allOf(CONDITIONS.predicate(condition), usernameIndex.contains(condition.getUsernameContains()));
     }
 
     public List<Member> searchMember(MemberSearchCondition condition) {
-        return queryFactory
+        return resultLimit.fetch(queryFactory
                 .selectFrom(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .where(conditions(condition)));
+    }
+
+    /**
+     * 벌크 연산
+     * : 영속성 컨텍스트를 거치지 않으므로 실행 후 초기화하고, 엔티티 콜백 대신 직접 변경 이벤트를 발행한다.
+     * 이벤트에는 바뀐 컬럼과 (나이/삭제면) 영향받은 팀을 담아서 받는 쪽이 필요한 만큼만 다시 읽게 한다.
+     */
+    public long bulkUpdateUsername(String username, int ageLt) {
+        long count = queryFactory
+                .update(member)
+                .set(member.username, username)
+                .where(member.age.lt(ageLt))
+                .execute();
+        afterBulk(MemberChangedEvent.bulk(EnumSet.of(Change.USERNAME), null, null, Collections.emptySet()));
+        return count;
+    }
+
+    public long bulkAgePlus(int amount) {
+        long count = queryFactory
+                .update(member)
+                .set(member.age, member.age.add(amount))
+                .execute();
+        // 전체 회원이 바뀌므로 팀 통계도 전체를 다시 만든다.
+        afterBulk(MemberChangedEvent.bulk(EnumSet.of(Change.AGE), null, null, null));
+        return count;
+    }
+
+    public long bulkDeleteByAgeGt(int age) {
+        List<Long> teamIds = teamIdsOf(member.age.gt(age));
+        long count = queryFactory
+                .delete(member)
+                .where(member.age.gt(age))
+                .execute();
+        afterBulk(MemberChangedEvent.bulk(EnumSet.of(Change.DELETE), null, null, teamIds));
+        return count;
+    }
+
+    /**
+     * 청크 단위 벌크 연산
+     * : id 구간마다 별도 트랜잭션으로 커밋하므로 트랜잭션 밖에서 호출해야 한다. (ChunkedBulkExecutor 참고)
+     * 청크가 커밋될 때마다 그 청크의 id 구간을 담은 변경 이벤트를 발행하고 progress 로 진행 상황을 알린다.
+     */
+    public BulkProgress bulkUpdateUsernameChunked(String username, int ageLt, Consumer<BulkProgress> progress) {
+        return chunkedBulkExecutor.execute(member, member.id, member.age.lt(ageLt),
+                (queryFactory, chunk, afterId, lastId) -> {
+                    long count = queryFactory
+                            .update(member)
+                            .set(member.username, username)
+                            .where(chunk)
+                            .execute();
+                    return publishBulk(count, EnumSet.of(Change.USERNAME), afterId, lastId, Collections.emptySet());
+                },
+                progress);
+    }
+
+    public BulkProgress bulkAgePlusChunked(int amount, Consumer<BulkProgress> progress) {
+        return chunkedBulkExecutor.execute(member, member.id, null,
+                (queryFactory, chunk, afterId, lastId) -> {
+                    List<Long> teamIds = teamIdsOf(chunk);
+                    long count = queryFactory
+                            .update(member)
+                            .set(member.age, member.age.add(amount))
+                            .where(chunk)
+                            .execute();
+                    return publishBulk(count, EnumSet.of(Change.AGE), afterId, lastId, teamIds);
+                },
+                progress);
+    }
+
+    public BulkProgress bulkDeleteByAgeGtChunked(int age, Consumer<BulkProgress> progress) {
+        return chunkedBulkExecutor.execute(member, member.id, member.age.gt(age),
+                (queryFactory, chunk, afterId, lastId) -> {
+                    List<Long> teamIds = teamIdsOf(chunk);
+                    long count = queryFactory
+                            .delete(member)
+                            .where(chunk)
+                            .execute();
+                    return publishBulk(count, EnumSet.of(Change.DELETE), afterId, lastId, teamIds);
+                },
+                progress);
+    }
+
+    // 변경 전에 대상 회원이 속한 팀을 구한다. (팀 통계는 이 팀만 다시 집계)
+    private List<Long> teamIdsOf(Predicate where) {
+        return queryFactory
+                .select(member.team.id)
+                .distinct()
+                .from(member)
+                .where(where, member.team.isNotNull())
                 .fetch();
     }
 
+    // 청크 트랜잭션 안에서 발행하므로 캐시 무효화는 청크 커밋 후에 일어난다.
+    private long publishBulk(long count, Set<Change> changes, Long afterId, Long lastId, Collection<Long> teamIds) {
+        if (count > 0) {
+            eventPublisher.publishEvent(MemberChangedEvent.bulk(changes, afterId, lastId, teamIds));
+        }
+        return count;
+    }
+
+    private void afterBulk(MemberChangedEvent event) {
+        em.flush();
+        em.clear();
+        eventPublisher.publishEvent(event);
+    }
+
     // 코드 재사용 가능
     private BooleanExpression ageBetween(int ageLoe, int ageGoe) {
         return ageGoe(ageLoe).and(ageLoe(ageGoe));
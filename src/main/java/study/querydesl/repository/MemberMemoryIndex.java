@@ -0,0 +1,199 @@
+package study.querydesl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydesl.entity.MemberChangedEvent;
+import study.querydesl.entity.MemberChangedEvent.Change;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static study.querydesl.entity.QMember.member;
+
+/**
+ * 회원 컬럼 하나(나이, 회원명 등)를 메모리에 올린 인덱스의 로딩/갱신 공통 부분
+ * - 기동 시 전체를 읽고, 이후에는 커밋된 회원 변경 이벤트로 갱신한다.
+ * - 벌크 이벤트는 이 컬럼이 바뀌었을 때만, 이벤트에 담긴 id 구간만 다시 읽는다.
+ * - 구간을 모르는 벌크 이벤트는 백그라운드 스레드에서 전체를 다시 읽는다. 그동안은 ready=false 라서 DB 로 조회한다.
+ *   다시 읽는 동안 들어온 이벤트는 모아 두었다가 새 인덱스에 한 번 더 반영한다. (반영은 같은 값을 덮어쓰므로 두 번 해도 된다)
+ * - 회원을 변경한 트랜잭션 안에서는 커밋 전 변경이 인덱스에 없으므로 사용하지 않는다. (MemberWriteTracker)
+ */
+abstract class MemberMemoryIndex<I, V> {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final MemberWriteTracker writeTracker;
+    private final Supplier<I> indexFactory;
+    private final Expression<V> column;
+    private final Change[] changes;
+    private final boolean enabled;
+    private final int loadFetchSize;
+    private final ExecutorService rebuildExecutor;
+    private final Object rebuildLock = new Object();
+
+    private volatile I index;
+    private volatile boolean ready;
+
+    // 아래 둘은 this 로 동기화
+    private List<MemberChangedEvent> replay;
+    private boolean rebuildRequested;
+
+    protected MemberMemoryIndex(EntityManager em, PlatformTransactionManager transactionManager,
+                                MemberWriteTracker writeTracker, Supplier<I> indexFactory, Expression<V> column,
+                                boolean enabled, int loadFetchSize, String threadNamePrefix, Change... changes) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.writeTracker = writeTracker;
+        this.indexFactory = indexFactory;
+        this.column = column;
+        this.changes = changes;
+        this.enabled = enabled;
+        this.loadFetchSize = loadFetchSize;
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory(threadNamePrefix));
+        this.index = indexFactory.get();
+    }
+
+    /**
+     * 지금 이 인덱스로 조회해도 되는지 (켜져 있고, 로딩이 끝났고, 현재 트랜잭션에 커밋 전 회원 변경이 없음)
+     */
+    public boolean isUsable() {
+        return enabled && ready && !writeTracker.hasPendingWrites();
+    }
+
+    protected I index() {
+        return index;
+    }
+
+    protected abstract V valueOf(MemberChangedEvent event);
+
+    protected abstract void put(I index, long id, V value);
+
+    protected abstract void remove(I index, long id);
+
+    /**
+     * afterId &lt; id &lt;= lastId 구간을 ids(오름차순)/values 로 바꾼다.
+     */
+    protected abstract void replaceRange(I index, long afterId, long lastId, long[] ids, List<V> values);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                rebuildRequested = false;
+                replay = new ArrayList<>();
+            }
+
+            I loaded = indexFactory.get();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Tuple> rows = queryFactory
+                        .select(member.id, column)
+                        .from(member)
+                        .orderBy(member.id.asc())
+                        .setHint(QueryHints.FETCH_SIZE, loadFetchSize)
+                        .stream()) {
+                    rows.forEach(row -> put(loaded, row.get(member.id), row.get(column)));
+                }
+            });
+
+            synchronized (this) {
+                // 읽는 동안 커밋된 변경은 읽은 결과에 들어 있을 수도, 없을 수도 있으므로 다시 반영한다.
+                for (MemberChangedEvent event : replay) {
+                    apply(loaded, event);
+                }
+                replay = null;
+                index = loaded;
+                // 그 사이 다시 읽어야 하는 변경이 또 왔으면 다음 rebuild 가 끝날 때까지 쓰지 않는다.
+                ready = !rebuildRequested;
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onMemberChanged(MemberChangedEvent event) {
+        if (!enabled || !event.hasAnyChange(changes)) {
+            return;
+        }
+        if (event.isBulk() && !event.hasIdRange()) {
+            requestRebuild();
+            return;
+        }
+        if (replay != null) {
+            replay.add(event);
+        }
+        if (ready) {
+            apply(index, event);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    // this 로 동기화된 상태에서 호출
+    private void requestRebuild() {
+        ready = false;
+        if (!rebuildRequested) {
+            rebuildRequested = true;
+            rebuildExecutor.execute(this::rebuild);
+        }
+    }
+
+    private void apply(I target, MemberChangedEvent event) {
+        switch (event.getType()) {
+            case SAVED:
+            case UPDATED:
+                V value = valueOf(event);
+                if (value != null) {
+                    put(target, event.getMemberId(), value);
+                } else {
+                    reload(target, event.getMemberId() - 1, event.getMemberId());
+                }
+                break;
+            case REMOVED:
+                remove(target, event.getMemberId());
+                break;
+            case BULK:
+                reload(target,
+                        event.getIdFrom() != null ? event.getIdFrom() : Long.MIN_VALUE,
+                        event.getIdTo() != null ? event.getIdTo() : Long.MAX_VALUE);
+                break;
+        }
+    }
+
+    private void reload(I target, long afterId, long lastId) {
+        List<Tuple> rows = readOnlyTransaction.execute(status -> queryFactory
+                .select(member.id, column)
+                .from(member)
+                .where(member.id.gt(afterId), member.id.loe(lastId))
+                .orderBy(member.id.asc())
+                .fetch());
+        long[] ids = new long[rows.size()];
+        List<V> values = new ArrayList<>(rows.size());
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = rows.get(i).get(member.id);
+            values.add(rows.get(i).get(column));
+        }
+        replaceRange(target, afterId, lastId, ids, values);
+    }
+}
@@ -1,16 +1,16 @@
 package study.querydesl.repository;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.stereotype.Repository;
 import study.querydesl.dto.MemberSearchCondition;
 import study.querydesl.dto.MemberTeamDto;
-import study.querydesl.dto.QMemberTeamDto;
+import study.querydesl.dto.MemberTeamDtoProjection;
+import study.querydesl.repository.support.PredicateCompiler;
+import study.querydesl.repository.support.ResultLimit;
 
 import javax.persistence.EntityManager;
 import java.util.List;
 
-import static org.springframework.util.StringUtils.hasText;
 import static study.querydesl.entity.QMember.member;
 import static study.querydesl.entity.QTeam.team;
 
@@ -20,15 +20,22 @@ import static study.querydesl.entity.QTeam.team;
  */
 @Repository
 public class MemberQueryRepository {
+    // MemberSearchCondition 의 @SearchField 로 조건 생성
+    private static final PredicateCompiler CONDITIONS = new PredicateCompiler(member, team);
+
     private final JPAQueryFactory queryFactory;
+    private final ResultLimit resultLimit;
+    private final MemberUsernameIndex usernameIndex;
 
-    public MemberQueryRepository(EntityManager em) {
+    public MemberQueryRepository(EntityManager em, ResultLimit resultLimit, MemberUsernameIndex usernameIndex) {
         this.queryFactory = new JPAQueryFactory(em);
+        this.resultLimit = resultLimit;
+        this.usernameIndex = usernameIndex;
     }
 
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
+        return resultLimit.fetch(queryFactory
+                .select(new MemberTeamDtoProjection(
                         member.id,
                         member.username,
                         member.age,
@@ -36,28 +43,7 @@ public class MemberQueryRepository {
                         team.name
                 )).from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
-    }
-
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName): null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+                .where(CONDITIONS.predicate(condition),
+                        usernameIndex.contains(condition.getUsernameContains())));
     }
 }
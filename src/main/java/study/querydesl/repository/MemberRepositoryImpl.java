@@ -1,22 +1,45 @@
 package study.querydesl.repository;
 
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.util.Assert;
+import study.querydesl.dto.CursorResult;
 import study.querydesl.dto.MemberSearchCondition;
 import study.querydesl.dto.MemberTeamDto;
-import study.querydesl.dto.QMemberTeamDto;
+import study.querydesl.dto.MemberTeamDtoProjection;
 import study.querydesl.entity.Member;
+import study.querydesl.repository.support.CountCache;
+import study.querydesl.repository.support.CountQueryBuilder;
+import study.querydesl.repository.support.CursorToken;
+import study.querydesl.repository.support.EstimatedPage;
+import study.querydesl.repository.support.ParallelCountExecutor;
+import study.querydesl.repository.support.PredicateCompiler;
+import study.querydesl.repository.support.QueryTemplate;
+import study.querydesl.repository.support.QueryTemplateCache;
+import study.querydesl.repository.support.ResultLimit;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydesl.entity.QMember.member;
@@ -26,7 +49,19 @@ import static study.querydesl.entity.QTeam.team;
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
 
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberCountCache countCache;
+    private final MemberSearchCache searchCache;
+    private final ParallelCountExecutor parallelCountExecutor;
+    private final ResultLimit resultLimit;
+    private final boolean parallelCount;
+    private final boolean denormalizedTeamName;
+    private final QueryTemplateCache queryTemplates;
+    private final MemberAgeIndex ageIndex;
+    private final MemberUsernameIndex usernameIndex;
+
+    static final PredicateCompiler CONDITIONS = new PredicateCompiler(member, team);
 
 //    public MemberRepositoryImpl(EntityManager em) {
 //        super(Member.class);
@@ -34,8 +69,24 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 //
 //    }
 //
-    public MemberRepositoryImpl(EntityManager em) {
+    public MemberRepositoryImpl(EntityManager em, MemberCountCache countCache, MemberSearchCache searchCache,
+                                ParallelCountExecutor parallelCountExecutor,
+                                ResultLimit resultLimit,
+                                MemberAgeIndex ageIndex,
+                                MemberUsernameIndex usernameIndex,
+                                @Value("${member.search.parallel-count:false}") boolean parallelCount,
+                                @Value("${member.search.denormalized-team-name:false}") boolean denormalizedTeamName) {
+        this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.countCache = countCache;
+        this.searchCache = searchCache;
+        this.parallelCountExecutor = parallelCountExecutor;
+        this.resultLimit = resultLimit;
+        this.parallelCount = parallelCount;
+        this.denormalizedTeamName = denormalizedTeamName;
+        this.queryTemplates = new QueryTemplateCache(em);
+        this.ageIndex = ageIndex;
+        this.usernameIndex = usernameIndex;
     }
 
 
@@ -60,29 +111,54 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 //                        )
 //                ).fetch();
 //        return result;
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id,
-                        member.username,
-                        member.age,
-                        team.id,
-                        team.name
-                )).from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+        // member.search.denormalized-team-name=true 면 team 조인 없이 member.team_name 으로 조회
+        if (denormalizedTeamName) {
+            return searchWithoutJoin(condition);
+        }
+        // 같은 조건의 결과는 캐시 (회원 변경 시 MemberSearchCache 가 무효화)
+        if (hasText(condition.getUsernameContains())) {
+            return searchCache.get("search", condition.normalized(), null,
+                    () -> resultLimit.fetch(containsQuery(condition)));
+        }
+        return searchCache.get("search", condition.normalized(), null,
+                () -> resultLimit.fetch(contentTemplate(condition), templateParams(condition)));
+    }
+
+    /**
+     * team 조인 없는 검색
+     * : team.id 는 member 의 FK 컬럼으로, team.name 은 비정규화한 member.teamName 으로 읽는다.
+     */
+    @Override
+    public List<MemberTeamDto> searchWithoutJoin(MemberSearchCondition condition) {
+        return searchCache.get("searchWithoutJoin", condition.normalized(), null,
+                () -> resultLimit.fetch(queryFactory
+                        .select(
+                                new MemberTeamDtoProjection(
+                                        member.id,
+                                        member.username,
+                                        member.age,
+                                        member.team.id,
+                                        member.teamName
+                                )
+                        )
+                        .from(member)
+                        .where(
+                                memberConditions(condition),
+                                hasText(condition.getTeamName()) ? member.teamName.eq(condition.getTeamName()) : null
+                        )));
     }
 
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        return searchCache.get("searchPageSimple", condition.normalized(), pageable,
+                () -> fetchSearchPageSimple(condition, pageable));
+    }
+
+    private Page<MemberTeamDto> fetchSearchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        Predicate where = conditions(condition);
         QueryResults<MemberTeamDto> result = queryFactory
                 .select(
-                        new QMemberTeamDto(
+                        new MemberTeamDtoProjection(
                                 member.id,
                                 member.username,
                                 member.age,
@@ -92,12 +168,7 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 )
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .where(where)
                 .offset(pageable.getOffset()) // 몇번째부터 시작할거야?
                 .limit(pageable.getPageSize()) // 한 페이지에 몇 개 가져올 것인가?
                 .fetchResults();
@@ -184,9 +255,156 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
     // fetchResults(), fetchCount() Deprecated
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return searchCache.get("searchPageComplex", condition.normalized(), pageable,
+                () -> fetchSearchPageComplex(condition, pageable));
+    }
+
+    private Page<MemberTeamDto> fetchSearchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        // 나이 조건만 있으면 메모리 나이 인덱스로 건수와 페이지 id 를 구한다.
+        if (pageable.isPaged() && ageIndex.canServe(condition)) {
+            return searchPageByAgeIndex(condition, pageable);
+        }
+
+        LongSupplier total;
+        Supplier<List<MemberTeamDto>> content;
+        if (hasText(condition.getUsernameContains())) {
+            // 회원명 부분 검색은 후보 id 가 요청마다 달라서 템플릿 대신 동적 쿼리로 조회한다.
+            JPAQuery<MemberTeamDto> query = containsQuery(condition);
+            JPAQuery<Long> countQuery = CountQueryBuilder.from(em, query);
+            total = () -> countCache.get(condition.normalized(), countQuery::fetchOne);
+            content = () -> query.clone()
+                    .offset(pageable.getOffset())
+                    .limit(pageable.getPageSize())
+                    .fetch();
+        } else {
+            QueryTemplate<MemberTeamDto> contentTemplate = contentTemplate(condition);
+            QueryTemplate<Long> countTemplate = countTemplate(condition);
+            Map<ParamExpression<?>, Object> params = templateParams(condition);
+
+            // 같은 조건의 count 는 캐시 (회원 변경 시 MemberCountCache 가 무효화)
+            total = () -> countCache.get(condition.normalized(), () -> countTemplate.fetchOne(params));
+            content = () -> contentTemplate.fetch(params, pageable.getOffset(), pageable.getPageSize());
+        }
+
+        // member.search.parallel-count=true 면 count 를 별도 커넥션에서 동시에 실행
+        if (parallelCount) {
+            return parallelCountExecutor.getPage(pageable, content, total);
+        }
+        return PageableExecutionUtils.getPage(content.get(), pageable, total);
+    }
+
+    /**
+     * 건수는 인덱스에서 O(log n) 으로, 페이지는 (나이, id) 순서의 id 를 인덱스에서 구해서 id 로만 조회한다.
+     */
+    private Page<MemberTeamDto> searchPageByAgeIndex(MemberSearchCondition condition, Pageable pageable) {
+        long total = ageIndex.count(condition.getAgeGoe(), condition.getAgeLoe());
+        long[] ids = ageIndex.ids(condition.getAgeGoe(), condition.getAgeLoe(),
+                pageable.getOffset(), pageable.getPageSize());
+        if (ids.length == 0) {
+            return new PageImpl<>(new ArrayList<>(), pageable, total);
+        }
+
+        List<Long> idList = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            idList.add(id);
+        }
+        Map<Long, MemberTeamDto> rows = new HashMap<>();
+        for (MemberTeamDto row : queryFactory
+                .select(new MemberTeamDtoProjection(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.id.in(idList))
+                .fetch()) {
+            rows.put(row.getMemberId(), row);
+        }
+
+        // 인덱스 순서대로 (그 사이 삭제된 회원은 빠진다)
+        List<MemberTeamDto> content = new ArrayList<>(ids.length);
+        for (Long id : idList) {
+            MemberTeamDto row = rows.get(id);
+            if (row != null) {
+                content.add(row);
+            }
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * 검색 조건 모양(어떤 조건이 있는지)별로 미리 직렬화해 둔 쿼리
+     * : 조건 4개의 조합은 16가지뿐이므로 매 요청마다 BooleanExpression 을 만들고 JPQL 로 직렬화할 필요가 없다.
+     * 조건은 MemberSearchCondition 의 @SearchField 로 정해진다.
+     */
+    private QueryTemplate<MemberTeamDto> contentTemplate(MemberSearchCondition condition) {
+        long shape = CONDITIONS.shapeOf(condition);
+        return queryTemplates.get(Arrays.asList("content", shape), () -> contentQuery(shape));
+    }
+
+    // teamName 조건이 없으면 count 쿼리에서 team 조인이 빠진다.
+    private QueryTemplate<Long> countTemplate(MemberSearchCondition condition) {
+        long shape = CONDITIONS.shapeOf(condition);
+        return queryTemplates.get(Arrays.asList("count", shape), () -> CountQueryBuilder.from(em, contentQuery(shape)));
+    }
+
+    private JPAQuery<MemberTeamDto> contentQuery(long shape) {
+        return searchQuery(queryFactory, shape);
+    }
+
+    /**
+     * shape 별 검색 쿼리 (MemberIndexChecker 도 같은 쿼리로 실행 계획을 확인한다)
+     * : teamName 조건이 있으면 team 이 없는 회원은 어차피 걸러지므로 inner join 으로 바꿔서
+     * DB 가 team(name 인덱스) 부터 읽고 member(team_id, age 인덱스) 로 조인할 수 있게 한다.
+     */
+    static JPAQuery<MemberTeamDto> searchQuery(JPAQueryFactory queryFactory, long shape) {
+        return selectFrom(queryFactory, shape)
+                .where(CONDITIONS.templatePredicate(MemberSearchCondition.class, shape));
+    }
+
+    private static JPAQuery<MemberTeamDto> selectFrom(JPAQueryFactory queryFactory, long shape) {
+        JPAQuery<MemberTeamDto> query = queryFactory
+                .select(
+                        new MemberTeamDtoProjection(
+                                member.id,
+                                member.username,
+                                member.age,
+                                team.id,
+                                team.name
+                        )
+                )
+                .from(member);
+        if (CONDITIONS.references(MemberSearchCondition.class, shape, team)) {
+            query.join(member.team, team);
+        } else {
+            query.leftJoin(member.team, team);
+        }
+        return query;
+    }
+
+    /**
+     * 회원명 부분 검색 쿼리
+     * : MemberUsernameIndex 가 트라이그램으로 찾은 후보 id 로 조건을 좁힌다. (인덱스를 못 쓰면 like 검색)
+     */
+    private JPAQuery<MemberTeamDto> containsQuery(MemberSearchCondition condition) {
+        return selectFrom(queryFactory, CONDITIONS.shapeOf(condition))
+                .where(conditions(condition));
+    }
+
+    private Map<ParamExpression<?>, Object> templateParams(MemberSearchCondition condition) {
+        return CONDITIONS.paramsOf(condition);
+    }
+
+    // 추정 건수 모드: 캐시에 남아있는 값(만료된 값 포함)을 쓰고, 없으면 estimateCap 건까지만 세어본다.
+    @Override
+    public EstimatedPage<MemberTeamDto> searchPageEstimated(MemberSearchCondition condition, Pageable pageable) {
+        Predicate where = conditions(condition);
         List<MemberTeamDto> content = queryFactory
                 .select(
-                        new QMemberTeamDto(
+                        new MemberTeamDtoProjection(
                                 member.id,
                                 member.username,
                                 member.age,
@@ -196,43 +414,122 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 )
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .where(where)
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
 
-        JPAQuery<Long> countQuery = queryFactory
-                .select(member.count())
+        // PageableExecutionUtils 와 같은 조건: 마지막 페이지면 count 없이 정확한 건수를 알 수 있다.
+        if (content.size() < pageable.getPageSize() && (pageable.getOffset() == 0 || !content.isEmpty())) {
+            return new EstimatedPage<>(content, pageable, pageable.getOffset() + content.size(), false);
+        }
+
+        MemberSearchCondition key = condition.normalized();
+        CountCache.Estimate estimate = countCache.getEstimate(key);
+        if (estimate != null) {
+            return new EstimatedPage<>(content, pageable, estimate.getCount(), estimate.isStale());
+        }
+
+        int cap = countCache.getEstimateCap();
+        long probed = queryFactory
+                .select(member.id)
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );
+                .where(where)
+                .limit(cap + 1)
+                .fetch()
+                .size();
+
+        if (probed <= cap) {
+            countCache.put(key, probed);
+            return new EstimatedPage<>(content, pageable, probed, false);
+        }
+        return new EstimatedPage<>(content, pageable, cap, true);
+    }
+
+    // count 쿼리 없이 pageSize + 1 건을 조회해서 다음 페이지 존재 여부만 판단
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        return searchCache.get("searchSlice", condition.normalized(), pageable,
+                () -> fetchSearchSlice(condition, pageable));
+    }
+
+    private Slice<MemberTeamDto> fetchSearchSlice(MemberSearchCondition condition, Pageable pageable) {
+        Predicate where = conditions(condition);
+        List<MemberTeamDto> content = queryFactory
+                .select(
+                        new MemberTeamDtoProjection(
+                                member.id,
+                                member.username,
+                                member.age,
+                                team.id,
+                                team.name
+                        )
+                )
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(where)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1)
+                .fetch();
 
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = new ArrayList<>(content.subList(0, pageable.getPageSize()));
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
+    // 커서(keyset) 페이징: offset 대신 마지막 member_id 이후부터 조회하므로 페이지가 깊어져도 앞의 row 를 건너뛰지 않는다.
+    @Override
+    public CursorResult<MemberTeamDto> searchByCursor(MemberSearchCondition condition, String cursor, int size) {
+        Assert.isTrue(size > 0, "Size must be greater than zero!");
+        Predicate where = conditions(condition);
+
+        List<MemberTeamDto> content = queryFactory
+                .select(
+                        new MemberTeamDtoProjection(
+                                member.id,
+                                member.username,
+                                member.age,
+                                team.id,
+                                team.name
+                        )
+                )
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        memberIdGt(CursorToken.decode(cursor)),
+                        where
+                )
+                .orderBy(member.id.asc())
+                .limit(size + 1L) // 다음 페이지 존재 여부 확인용으로 하나 더 조회
+                .fetch();
+
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = new ArrayList<>(content.subList(0, size));
+        }
+        String nextCursor = hasNext ? CursorToken.encode(content.get(content.size() - 1).getMemberId()) : null;
+        return new CursorResult<>(content, nextCursor, hasNext);
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+    private BooleanExpression memberIdGt(Long lastMemberId) {
+        return lastMemberId != null ? member.id.gt(lastMemberId) : null;
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    /**
+     * &#64;SearchField 조건 + 회원명 부분 검색 (team alias 로 left join 한 쿼리용)
+     * : 회원명 후보 id 는 요청마다 한 번만 구하도록 쿼리 두 개(컨텐츠, 건수)에 같은 조건을 넘긴다.
+     */
+    private Predicate conditions(MemberSearchCondition condition) {
+        return ExpressionUtils.allOf(CONDITIONS.predicate(condition), usernameIndex.contains(condition.getUsernameContains()));
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    // team 조인 없는 쿼리용: teamName 조건만 빼고 같다.
+    private Predicate memberConditions(MemberSearchCondition condition) {
+        MemberSearchCondition withoutTeam = condition.normalized();
+        withoutTeam.setTeamName(null);
+        return conditions(withoutTeam);
     }
 }
@@ -0,0 +1,63 @@
+package study.querydesl.repository;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import study.querydesl.entity.MemberChangedEvent;
+import study.querydesl.entity.TeamChangedEvent;
+import study.querydesl.repository.support.CacheStats;
+import study.querydesl.repository.support.LruQueryResultCache;
+import study.querydesl.repository.support.QueryResultCache;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * 회원 검색 결과 캐시
+ * : 키는 (조회 메서드, 정규화된 검색 조건, pageable) 이다.
+ * 회원 저장/변경(changeTeam 포함)/삭제/벌크 연산, 팀 변경이 일어나면 바로 한 번, 트랜잭션이 끝나면(커밋/롤백) 다시 한 번 전부 무효화한다.
+ * 변경한 트랜잭션 안의 조회는 커밋 전 데이터이므로 캐시를 읽지도 채우지도 않는다. (롤백되면 없는 데이터가 남는다)
+ * QueryResultCache 빈이 따로 등록되어 있으면 기본 LRU 대신 그걸 사용한다.
+ */
+@Component
+public class MemberSearchCache {
+
+    private final QueryResultCache cache;
+    private final MemberWriteTracker writeTracker;
+    private final boolean enabled;
+
+    public MemberSearchCache(ObjectProvider<QueryResultCache> customCache, MemberWriteTracker writeTracker,
+                             @Value("${member.search-cache.enabled:true}") boolean enabled,
+                             @Value("${member.search-cache.max-size:500}") int maxSize) {
+        this.cache = customCache.getIfAvailable(() -> new LruQueryResultCache(maxSize));
+        this.writeTracker = writeTracker;
+        this.enabled = enabled;
+    }
+
+    public <T> T get(String method, Object condition, Object pageable, Supplier<T> loader) {
+        if (!enabled || writeTracker.hasPendingWrites()) {
+            return loader.get();
+        }
+        return cache.get(Arrays.asList(method, condition, pageable), loader);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    // 변경 시점: 조회 도중(자동 flush) 변경되었으면 그 결과를 저장하지 않도록 세대를 올린다.
+    @EventListener({MemberChangedEvent.class, TeamChangedEvent.class})
+    public void onChanged() {
+        cache.invalidateAll();
+    }
+
+    // 완료 시점: 그 사이 다른 트랜잭션이 변경 전 데이터로 채운 값을 지운다. (롤백이어도 지운다)
+    @TransactionalEventListener(classes = {MemberChangedEvent.class, TeamChangedEvent.class},
+            phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onCompleted() {
+        cache.invalidateAll();
+    }
+}
@@ -1,17 +1,26 @@
 package study.querydesl.repository;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.jpa.impl.JPAQuery;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import study.querydesl.dto.MemberSearchCondition;
+import study.querydesl.dto.MemberTeamDto;
+import study.querydesl.dto.MemberTeamDtoProjection;
 import study.querydesl.entity.Member;
 import study.querydesl.entity.QMember;
+import study.querydesl.repository.support.PredicateCompiler;
+import study.querydesl.repository.support.PredicateEvaluator;
 import study.querydesl.repository.support.Querydsl4RepositorySupport;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydesl.entity.QMember.*;
@@ -20,8 +29,37 @@ import static study.querydesl.entity.QTeam.team;
 @Repository
 public class MemberTestRepository extends Querydsl4RepositorySupport {
 
-    public MemberTestRepository() {
+    // MemberSearchCondition 의 @SearchField 로 조건 생성
+    private static final PredicateCompiler CONDITIONS = new PredicateCompiler(member, team);
+
+    // shape 별로 컴파일한 메모리 조건 (값은 Param 으로 바인딩)
+    private final Map<Long, PredicateEvaluator.Matcher<Member>> cachedMatchers = new ConcurrentHashMap<>();
+
+    private final MemberUsernameIndex usernameIndex;
+
+    public MemberTestRepository(MemberUsernameIndex usernameIndex) {
         super(Member.class);
+        this.usernameIndex = usernameIndex;
+    }
+
+    /**
+     * 이미 조회해 둔 회원 목록을 DB 에 보내는 것과 같은 조건으로 메모리에서 거른다.
+     */
+    public List<Member> searchCached(List<Member> cached, MemberSearchCondition condition) {
+        long shape = CONDITIONS.shapeOf(condition);
+        PredicateEvaluator.Matcher<Member> matcher = cachedMatchers.computeIfAbsent(shape, key ->
+                this.<Member>predicateEvaluator()
+                        .bind(team, "team")
+                        .compile(CONDITIONS.templatePredicate(MemberSearchCondition.class, key)));
+        java.util.function.Predicate<Member> predicate = matcher.with(CONDITIONS.paramsOf(condition));
+
+        // usernameContains 는 @SearchField 가 아니므로 DB 의 containsIgnoreCase 와 같게 따로 거른다.
+        if (hasText(condition.getUsernameContains())) {
+            String keyword = condition.getUsernameContains().toLowerCase(Locale.ROOT);
+            predicate = predicate.and(m -> m.getUsername() != null
+                    && m.getUsername().toLowerCase(Locale.ROOT).contains(keyword));
+        }
+        return applyPredicate(cached, predicate);
     }
 
     public List<Member> basicSelect() {
@@ -38,12 +76,7 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
     public Page<Member> searchPageByApplyPage(MemberSearchCondition condition, Pageable pageable) {
         JPAQuery<Member> query = selectFrom(member)
                 .join(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );
+                .where(where(condition));
 
         List<Member> content = getQuerydsl().applyPagination(pageable, query).fetch();
 
@@ -56,12 +89,7 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
         return applyPagination(pageable, query ->
                 query.selectFrom(member)
                         .join(member.team, team)
-                        .where(
-                                usernameEq(condition.getUsername()),
-                                teamNameEq(condition.getTeamName()),
-                                ageGoe(condition.getAgeGoe()),
-                                ageLoe(condition.getAgeLoe())
-                        )
+                        .where(where(condition))
         );
     }
 
@@ -71,40 +99,51 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
         return applyPagination(pageable, contentQuery ->
                 contentQuery.selectFrom(member)
                         .join(member.team, team)
-                        .where(
-                                usernameEq(condition.getUsername()),
-                                teamNameEq(condition.getTeamName()),
-                                ageGoe(condition.getAgeGoe()),
-                                ageLoe(condition.getAgeLoe())
-                        ),
+                        .where(where(condition)),
                 countQuery -> countQuery
                         .select(member.id)
                         .from(member)
                         .leftJoin(member.team, team)
-                        .where(
-                                usernameEq(condition.getUsername()),
-                                teamNameEq(condition.getTeamName()),
-                                ageGoe(condition.getAgeGoe()),
-                                ageLoe(condition.getAgeLoe())
-                        )
+                        .where(where(condition))
         );
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
+    // count 쿼리 없는 Slice 버전
+    public Slice<Member> applySlice(MemberSearchCondition condition, Pageable pageable) {
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+        return applySlice(pageable, query ->
+                query.selectFrom(member)
+                        .join(member.team, team)
+                        .where(where(condition))
+        );
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
+    // 2단계 페이징: id 로만 페이징한 뒤 해당 id 의 DTO 를 조회
+    public Page<MemberTeamDto> searchPageDeferredJoin(MemberSearchCondition condition, Pageable pageable) {
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+        return applyDeferredJoinPagination(pageable,
+                idQuery -> idQuery
+                        .select(member.id)
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(where(condition)),
+                (contentQuery, ids) -> contentQuery
+                        .select(new MemberTeamDtoProjection(
+                                member.id,
+                                member.username,
+                                member.age,
+                                team.id,
+                                team.name
+                        ))
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(member.id.in(ids)),
+                MemberTeamDto::getMemberId
+        );
     }
 
-
+    // @SearchField 조건 + 회원명 부분 검색
+    private Predicate where(MemberSearchCondition condition) {
+        return ExpressionUtils.allOf(CONDITIONS.predicate(condition), usernameIndex.contains(condition.getUsernameContains()));
+    }
 }
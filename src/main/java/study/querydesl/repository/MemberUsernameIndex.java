@@ -0,0 +1,82 @@
+package study.querydesl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.querydesl.entity.MemberChangedEvent;
+import study.querydesl.entity.MemberChangedEvent.Change;
+import study.querydesl.repository.support.TrigramIndex;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydesl.entity.QMember.member;
+
+/**
+ * 회원명 부분 검색(usernameContains)용 트라이그램 인덱스
+ * : 인덱스에서 후보 id 를 구해서 member.id in (...) 조건으로 바꾼다. 나머지 조건과 조회(MemberTeamDtoProjection)는 기존 쿼리 그대로 사용한다.
+ * 후보가 max-candidates 를 넘거나 인덱스를 쓸 수 없으면(로딩 전, 커밋 전 변경이 있는 트랜잭션) like '%x%' 로 대신한다. (대소문자 구분 없음)
+ * 회원명이 바뀌지 않는 벌크 연산(나이 변경 등)은 무시하고, 회원명 변경/저장/삭제는 그 id 구간만 다시 읽는다. (MemberMemoryIndex)
+ */
+@Component
+public class MemberUsernameIndex extends MemberMemoryIndex<TrigramIndex, String> {
+
+    private final int maxCandidates;
+
+    public MemberUsernameIndex(EntityManager em, PlatformTransactionManager transactionManager,
+                               MemberWriteTracker writeTracker,
+                               @Value("${member.username-index.enabled:true}") boolean enabled,
+                               @Value("${member.username-index.max-candidates:1000}") int maxCandidates,
+                               @Value("${member.username-index.load-fetch-size:1000}") int loadFetchSize) {
+        super(em, transactionManager, writeTracker, TrigramIndex::new, member.username, enabled, loadFetchSize,
+                "member-username-index-", Change.USERNAME, Change.INSERT, Change.DELETE);
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * 회원명에 keyword 가 포함된 회원 조건 (keyword 가 없으면 null)
+     */
+    public BooleanExpression contains(String keyword) {
+        if (!hasText(keyword)) {
+            return null;
+        }
+        // 짧은 검색어는 후보를 좁힐 수 없어서 전체 id 를 훑고 정렬한 뒤 결국 maxCandidates 를 넘으므로 바로 like
+        if (keyword.length() < TrigramIndex.MIN_KEYWORD_LENGTH || !isUsable()) {
+            return member.username.containsIgnoreCase(keyword);
+        }
+
+        long[] ids = index().search(keyword, maxCandidates);
+        if (ids.length > maxCandidates) {
+            return member.username.containsIgnoreCase(keyword);
+        }
+        List<Long> idList = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            idList.add(id);
+        }
+        // 빈 목록이면 Querydsl 이 항상 거짓인 조건으로 바꾼다.
+        return member.id.in(idList);
+    }
+
+    @Override
+    protected String valueOf(MemberChangedEvent event) {
+        return event.getUsername();
+    }
+
+    @Override
+    protected void put(TrigramIndex index, long id, String username) {
+        index.put(id, username);
+    }
+
+    @Override
+    protected void remove(TrigramIndex index, long id) {
+        index.remove(id);
+    }
+
+    @Override
+    protected void replaceRange(TrigramIndex index, long afterId, long lastId, long[] ids, List<String> usernames) {
+        index.replaceRange(afterId, lastId, ids, usernames);
+    }
+}
@@ -0,0 +1,62 @@
+package study.querydesl.repository;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydesl.entity.MemberChangedEvent;
+import study.querydesl.entity.TeamChangedEvent;
+
+import javax.persistence.EntityManager;
+
+/**
+ * 현재 트랜잭션에서 회원/팀을 변경했는지 추적
+ * : 커밋 전 데이터는 롤백되면 사라지므로, 변경한 트랜잭션 안의 조회는 캐시/메모리 인덱스를 건너뛰고 DB 에서 읽어야 한다.
+ * 이벤트는 flush 중(엔티티 콜백)이나 벌크 연산 직후에 오므로, 아직 flush 되지 않은 persist/remove 는
+ * 영속성 컨텍스트의 쓰기 지연 큐로 확인한다.
+ */
+@Component
+public class MemberWriteTracker {
+
+    private final EntityManager em;
+
+    public MemberWriteTracker(EntityManager em) {
+        this.em = em;
+    }
+
+    @EventListener
+    public void onMemberChanged(MemberChangedEvent event) {
+        markPendingWrites();
+    }
+
+    @EventListener
+    public void onTeamChanged(TeamChangedEvent event) {
+        markPendingWrites();
+    }
+
+    /**
+     * 현재 트랜잭션에 아직 완료(커밋/롤백)되지 않은 회원/팀 변경이 있으면 true
+     */
+    public boolean hasPendingWrites() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return false;
+        }
+        return TransactionSynchronizationManager.hasResource(this)
+                || em.unwrap(SessionImplementor.class).getActionQueue().hasAnyQueuedActions();
+    }
+
+    private void markPendingWrites() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(MemberWriteTracker.this);
+            }
+        });
+    }
+}
@@ -0,0 +1,186 @@
+package study.querydesl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydesl.dto.TeamStatsDto;
+import study.querydesl.dto.TeamStatsDtoProjection;
+import study.querydesl.entity.TeamStats;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static study.querydesl.entity.QMember.member;
+import static study.querydesl.entity.QTeam.team;
+import static study.querydesl.entity.QTeamStats.teamStats;
+
+/**
+ * 팀 통계 조회/갱신
+ * - applyDelta: 회원 추가/이동에 따른 증분 반영 (DB 에서 원자적으로 더한다)
+ * - recompute: 회원 삭제처럼 최소/최대를 증분으로 알 수 없을 때 해당 팀만 다시 집계 ((team_id, age) 인덱스 사용)
+ * - rebuild: 전체 재생성
+ * - findInconsistent: member 를 직접 group by 한 결과와 비교
+ */
+@Repository
+public class TeamStatsRepository {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    public TeamStatsRepository(EntityManager em) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    @Transactional(readOnly = true)
+    public List<TeamStatsDto> findAll() {
+        return queryFactory
+                .select(statsProjection())
+                .from(teamStats, team)
+                .where(teamStats.teamId.eq(team.id))
+                .orderBy(team.name.asc())
+                .fetch();
+    }
+
+    @Transactional(readOnly = true)
+    public TeamStatsDto findByTeamId(Long teamId) {
+        return queryFactory
+                .select(statsProjection())
+                .from(teamStats, team)
+                .where(teamStats.teamId.eq(team.id), team.id.eq(teamId))
+                .fetchOne();
+    }
+
+    /**
+     * 회원이 추가된 만큼 더한다. (회원 수, 나이 합, 추가된 회원 중 최소/최대 나이)
+     */
+    public void applyDelta(Long teamId, long countDelta, long ageSumDelta, Integer addedMin, Integer addedMax) {
+        long updated = queryFactory
+                .update(teamStats)
+                .set(teamStats.memberCount, teamStats.memberCount.add(countDelta))
+                .set(teamStats.ageSum, teamStats.ageSum.add(ageSumDelta))
+                .set(teamStats.ageMin, addedMin == null ? teamStats.ageMin : new CaseBuilder()
+                        .when(teamStats.ageMin.isNull().or(teamStats.ageMin.gt(addedMin)))
+                        .then(Expressions.constant(addedMin))
+                        .otherwise(teamStats.ageMin))
+                .set(teamStats.ageMax, addedMax == null ? teamStats.ageMax : new CaseBuilder()
+                        .when(teamStats.ageMax.isNull().or(teamStats.ageMax.lt(addedMax)))
+                        .then(Expressions.constant(addedMax))
+                        .otherwise(teamStats.ageMax))
+                .where(teamStats.teamId.eq(teamId))
+                .execute();
+
+        if (updated == 0) {
+            // 통계 row 가 아직 없으면 해당 팀을 집계해서 새로 만든다.
+            recompute(teamId);
+        }
+    }
+
+    public void recompute(Long teamId) {
+        TeamStats live = liveStats(member.team.id.eq(teamId)).get(teamId);
+        TeamStats stored = em.find(TeamStats.class, teamId);
+        if (live == null) {
+            if (stored != null) {
+                em.remove(stored);
+            }
+        } else if (stored == null) {
+            em.persist(live);
+        } else {
+            stored.replaceWith(live);
+        }
+        em.flush();
+    }
+
+    public void recompute(Collection<Long> teamIds) {
+        teamIds.forEach(this::recompute);
+    }
+
+    @Transactional
+    public void rebuild() {
+        // 영속성 컨텍스트에 남은 통계 엔티티와 id 가 겹치지 않도록 먼저 비운다.
+        em.flush();
+        em.clear();
+        queryFactory.delete(teamStats).execute();
+        liveStats(null).values().forEach(em::persist);
+        em.flush();
+        em.clear();
+    }
+
+    /**
+     * 통계 테이블과 실제 group by 결과가 다른 팀 id
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findInconsistent() {
+        Map<Long, TeamStats> live = liveStats(null);
+        // 엔티티로 읽으면 영속성 컨텍스트의 (벌크 update 이전) 값이 나올 수 있으므로 값으로 읽는다.
+        Map<Long, TeamStats> stored = queryFactory
+                .select(Projections.constructor(TeamStats.class,
+                        teamStats.teamId, teamStats.memberCount, teamStats.ageSum, teamStats.ageMin, teamStats.ageMax))
+                .from(teamStats)
+                .fetch()
+                .stream()
+                .collect(Collectors.toMap(TeamStats::getTeamId, Function.identity()));
+
+        List<Long> result = new ArrayList<>();
+        live.forEach((teamId, expected) -> {
+            if (!sameStats(expected, stored.get(teamId))) {
+                result.add(teamId);
+            }
+        });
+        stored.forEach((teamId, actual) -> {
+            if (!live.containsKey(teamId) && actual.getMemberCount() != 0) {
+                result.add(teamId);
+            }
+        });
+        return result;
+    }
+
+    // member 를 직접 group by 한 통계 (팀이 없는 회원 제외)
+    private Map<Long, TeamStats> liveStats(Predicate where) {
+        List<Tuple> rows = queryFactory
+                .select(member.team.id, member.count(), member.age.sum(), member.age.min(), member.age.max())
+                .from(member)
+                .where(member.team.isNotNull(), where)
+                .groupBy(member.team.id)
+                .fetch();
+
+        // sum 은 DB/하이버네이트에 따라 Integer 나 Long 으로 오므로 Number 로 읽는다.
+        return rows.stream()
+                .map(Tuple::toArray)
+                .map(row -> new TeamStats((Long) row[0],
+                        ((Number) row[1]).longValue(),
+                        ((Number) row[2]).longValue(),
+                        (Integer) row[3],
+                        (Integer) row[4]))
+                .collect(Collectors.toMap(TeamStats::getTeamId, Function.identity()));
+    }
+
+    private static boolean sameStats(TeamStats expected, TeamStats actual) {
+        return actual != null
+                && expected.getMemberCount() == actual.getMemberCount()
+                && expected.getAgeSum() == actual.getAgeSum()
+                && Objects.equals(expected.getAgeMin(), actual.getAgeMin())
+                && Objects.equals(expected.getAgeMax(), actual.getAgeMax());
+    }
+
+    private static TeamStatsDtoProjection statsProjection() {
+        return new TeamStatsDtoProjection(
+                teamStats.teamId,
+                team.name,
+                teamStats.memberCount,
+                teamStats.ageSum,
+                teamStats.ageMin,
+                teamStats.ageMax);
+    }
+}
@@ -0,0 +1,31 @@
+package study.querydesl.repository.support;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 청크 단위 벌크 연산 진행 상황
+ * : 청크 하나가 커밋될 때마다 새 인스턴스가 전달된다.
+ */
+@Getter
+@ToString
+public class BulkProgress {
+
+    private final int chunks;
+    private final long affectedRows;
+    private final Long lastId;
+    private final Long maxId;
+    private final long elapsedMillis;
+
+    public BulkProgress(int chunks, long affectedRows, Long lastId, Long maxId, long elapsedMillis) {
+        this.chunks = chunks;
+        this.affectedRows = affectedRows;
+        this.lastId = lastId;
+        this.maxId = maxId;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public boolean isDone() {
+        return maxId == null || (lastId != null && lastId >= maxId);
+    }
+}
@@ -0,0 +1,29 @@
+package study.querydesl.repository.support;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 캐시 크기를 정하기 위한 적중/미스/제거 횟수
+ */
+@Getter
+@ToString
+public class CacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final int size;
+
+    public CacheStats(long hitCount, long missCount, long evictionCount, int size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+    }
+
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 0.0 : (double) hitCount / requestCount;
+    }
+}
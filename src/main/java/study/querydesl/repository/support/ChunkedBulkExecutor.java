@@ -0,0 +1,131 @@
+package study.querydesl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * 벌크 update/delete 를 id 구간(청크)으로 나눠서 청크마다 별도 트랜잭션으로 커밋
+ * - 테이블 전체에 한 번에 락을 잡지 않는다.
+ * - 청크 경계는 조건에 맞는 id 를 chunkSize 개씩 건너뛰며 구하므로 id 가 듬성듬성해도 청크 크기가 일정하다.
+ * - 시작 시점의 최대 id 까지만 처리하므로 작업 중에 새로 들어온 데이터는 건드리지 않는다.
+ * - 청크마다 영속성 컨텍스트를 비우고 2차 캐시에서 해당 엔티티를 제거한다.
+ * - 청크 사이에 pause 만큼 쉬어서 다른 트랜잭션에 DB 를 양보한다.
+ *
+ * 청크마다 커밋해야 하므로 이미 시작된 트랜잭션 안에서는 호출할 수 없다.
+ */
+@Component
+public class ChunkedBulkExecutor {
+
+    /**
+     * chunk 조건(where + id 구간)을 그대로 where 에 넣어서 벌크 연산을 실행하고 변경된 row 수를 반환한다.
+     * afterId(초과, 첫 청크는 null) ~ lastId(이하)는 청크의 id 구간으로, 변경 이벤트에 담을 때 사용한다.
+     */
+    @FunctionalInterface
+    public interface ChunkMutation {
+        long execute(JPAQueryFactory queryFactory, Predicate chunk, Long afterId, Long lastId);
+    }
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate chunkTransaction;
+    private final int chunkSize;
+    private final Duration pause;
+
+    public ChunkedBulkExecutor(EntityManager em,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${querydsl.bulk.chunk-size:1000}") int chunkSize,
+                               @Value("${querydsl.bulk.pause:0ms}") Duration pause) {
+        Assert.isTrue(chunkSize > 0, "chunkSize must be positive");
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+        this.pause = pause;
+    }
+
+    public BulkProgress execute(EntityPath<?> entity, NumberPath<Long> id, Predicate where,
+                                ChunkMutation mutation, Consumer<BulkProgress> progressListener) {
+        Assert.state(!TransactionSynchronizationManager.isActualTransactionActive(),
+                "chunked bulk operation commits per chunk and cannot run inside an existing transaction");
+
+        long start = System.nanoTime();
+        Long maxId = chunkTransaction.execute(status -> queryFactory
+                .select(id.max())
+                .from(entity)
+                .where(where)
+                .fetchOne());
+
+        int chunks = 0;
+        long affectedRows = 0;
+        Long lastId = null;
+        while (maxId != null && (lastId == null || lastId < maxId)) {
+            if (chunks > 0) {
+                sleep();
+            }
+
+            Long from = lastId;
+            long[] affected = new long[1];
+            Long to = chunkTransaction.execute(status -> {
+                Long boundary = nextBoundary(entity, id, where, from, maxId);
+                Predicate range = from == null ? id.loe(boundary) : id.gt(from).and(id.loe(boundary));
+                affected[0] = mutation.execute(queryFactory, ExpressionUtils.allOf(where, range), from, boundary);
+                // 벌크 연산은 영속성 컨텍스트와 2차 캐시를 거치지 않으므로 직접 비운다.
+                em.flush();
+                em.clear();
+                em.getEntityManagerFactory().getCache().evict(entity.getType());
+                return boundary;
+            });
+
+            chunks++;
+            affectedRows += affected[0];
+            lastId = to;
+            if (progressListener != null) {
+                progressListener.accept(new BulkProgress(chunks, affectedRows, lastId, maxId, elapsedMillis(start)));
+            }
+        }
+        return new BulkProgress(chunks, affectedRows, lastId, maxId, elapsedMillis(start));
+    }
+
+    private Long nextBoundary(EntityPath<?> entity, NumberPath<Long> id, Predicate where, Long from, Long maxId) {
+        Long boundary = queryFactory
+                .select(id)
+                .from(entity)
+                .where(where, from == null ? null : id.gt(from), id.loe(maxId))
+                .orderBy(id.asc())
+                .offset(chunkSize - 1)
+                .limit(1)
+                .fetchOne();
+        return boundary != null ? boundary : maxId;
+    }
+
+    private void sleep() {
+        if (pause.isZero() || pause.isNegative()) {
+            return;
+        }
+        try {
+            Thread.sleep(pause.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("chunked bulk operation interrupted", e);
+        }
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,127 @@
+package study.querydesl.repository.support;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 페이징 count 쿼리 결과 캐시
+ * : 검색 조건(정규화된 키)별로 전체 건수를 TTL 동안 보관한다.
+ * invalidateAll() 은 세대(generation)만 올리고 값은 남겨두기 때문에,
+ * 정확한 건수가 필요 없는 추정(estimated) 조회에서는 만료된 값도 다시 쓸 수 있다.
+ */
+public class CountCache {
+
+    private final long ttlMillis;
+    private final int maxSize;
+    private final Map<Object, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public CountCache(Duration ttl, int maxSize) {
+        Assert.notNull(ttl, "TTL must not be null!");
+        Assert.isTrue(maxSize > 0, "Max size must be greater than zero!");
+        this.ttlMillis = ttl.toMillis();
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 유효한 캐시 값이 있으면 반환하고, 없으면 counter 로 정확한 건수를 구해서 저장한다.
+     */
+    public long get(Object key, LongSupplier counter) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isFresh(generation.get(), now())) {
+            return entry.count;
+        }
+
+        // count 도중 무효화가 일어났으면 예전 데이터 기준 값이므로 저장하지 않는다.
+        long startGeneration = generation.get();
+        long count = counter.getAsLong();
+        put(key, count, startGeneration);
+        return count;
+    }
+
+    /**
+     * 만료/무효화 여부와 상관없이 마지막으로 알고 있던 값을 반환한다. (없으면 null)
+     */
+    public Estimate getEstimate(Object key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        return new Estimate(entry.count, !entry.isFresh(generation.get(), now()));
+    }
+
+    public void put(Object key, long count) {
+        put(key, count, generation.get());
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void put(Object key, long count, long startGeneration) {
+        if (startGeneration != generation.get()) {
+            return;
+        }
+        if (entries.size() >= maxSize && !entries.containsKey(key)) {
+            evict();
+        }
+        entries.put(key, new Entry(count, startGeneration, now() + ttlMillis));
+    }
+
+    // 만료된 값부터 지우고, 그래도 가득 차 있으면 전부 비운다.
+    private void evict() {
+        long currentGeneration = generation.get();
+        long now = now();
+        entries.values().removeIf(entry -> !entry.isFresh(currentGeneration, now));
+        if (entries.size() >= maxSize) {
+            entries.clear();
+        }
+    }
+
+    private long now() {
+        return System.currentTimeMillis();
+    }
+
+    private static class Entry {
+        private final long count;
+        private final long generation;
+        private final long expiresAt;
+
+        private Entry(long count, long generation, long expiresAt) {
+            this.count = count;
+            this.generation = generation;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isFresh(long currentGeneration, long now) {
+            return generation == currentGeneration && now < expiresAt;
+        }
+    }
+
+    public static class Estimate {
+        private final long count;
+        private final boolean stale;
+
+        private Estimate(long count, boolean stale) {
+            this.count = count;
+            this.stale = stale;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public boolean isStale() {
+            return stale;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package study.querydesl.repository.support;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.core.types.dsl.SimpleExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 컨텐츠 쿼리로부터 count 쿼리 만들기
+ * - order by, offset/limit, fetch join 제거
+ * - where 에서 참조하지 않는 left join 은 제거
+ *   (단, 컬렉션 left join 은 row 수에 영향을 주므로 유지. 루트 엔티티를 distinct 로 조회할 때는 row 수와 관계없으므로 제거)
+ * - 컬렉션 join 이 남아 있고 distinct 쿼리일 때만 count(distinct) 사용
+ * group by 가 있는 쿼리는 그룹 수를, 루트 엔티티가 아닌 값을 distinct 로 조회하는 쿼리는 서로 다른 값의 수를 세야 하므로 대상이 아니다.
+ * (canDerive 로 확인)
+ */
+public final class CountQueryBuilder {
+
+    private CountQueryBuilder() {
+    }
+
+    public static boolean canDerive(JPAQuery<?> contentQuery) {
+        QueryMetadata metadata = contentQuery.getMetadata();
+        return metadata.getGroupBy().isEmpty()
+                && metadata.getHaving() == null
+                && !metadata.getJoins().isEmpty()
+                && metadata.getJoins().get(0).getTarget() instanceof SimpleExpression
+                && (!metadata.isDistinct() || selectsRoot(metadata));
+    }
+
+    public static JPAQuery<Long> from(EntityManager em, JPAQuery<?> contentQuery) {
+        if (!canDerive(contentQuery)) {
+            throw new IllegalArgumentException("count query cannot be derived: " + contentQuery);
+        }
+        QueryMetadata source = contentQuery.getMetadata();
+        List<JoinExpression> joins = source.getJoins();
+        boolean distinctRoot = source.isDistinct();
+
+        // 뒤에서부터 보면서 필요한 alias 를 모은다. (뒤의 join 이 앞의 alias 를 참조할 수 있음)
+        Set<Path<?>> required = new HashSet<>();
+        collectRoots(source.getWhere(), required);
+
+        List<JoinExpression> kept = new ArrayList<>();
+        boolean toManyJoin = false;
+        for (int i = joins.size() - 1; i >= 0; i--) {
+            JoinExpression join = joins.get(i);
+            boolean toMany = isToMany(join);
+            if (join.getType() == JoinType.LEFTJOIN && (!toMany || distinctRoot) && !isReferenced(join, required)) {
+                continue;
+            }
+            toManyJoin |= toMany && join.getType() != JoinType.DEFAULT;
+            collectRoots(joinSource(join), required);
+            collectRoots(join.getCondition(), required);
+            kept.add(0, join);
+        }
+
+        DefaultQueryMetadata metadata = new DefaultQueryMetadata();
+        metadata.noValidate();
+        for (JoinExpression join : kept) {
+            metadata.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                metadata.addJoinCondition(join.getCondition());
+            }
+        }
+        if (source.getWhere() != null) {
+            metadata.addWhere(source.getWhere());
+        }
+        for (Map.Entry<ParamExpression<?>, Object> param : source.getParams().entrySet()) {
+            setParam(metadata, param.getKey(), param.getValue());
+        }
+
+        SimpleExpression<?> root = (SimpleExpression<?>) joins.get(0).getTarget();
+        metadata.setProjection(toManyJoin && source.isDistinct() ? root.countDistinct() : root.count());
+        return new JPAQuery<>(em, metadata);
+    }
+
+    // selectFrom(member) 처럼 루트 엔티티 자체를 조회 (projection 이 없으면 루트 엔티티)
+    private static boolean selectsRoot(QueryMetadata metadata) {
+        Expression<?> projection = metadata.getProjection();
+        return projection == null || projection.equals(metadata.getJoins().get(0).getTarget());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void setParam(DefaultQueryMetadata metadata, ParamExpression<T> param, Object value) {
+        metadata.setParam(param, (T) value);
+    }
+
+    // leftJoin(member.team, team) 형태면 target 은 alias 연산이다.
+    private static Expression<?> joinSource(JoinExpression join) {
+        Expression<?> target = join.getTarget();
+        if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+            return ((Operation<?>) target).getArg(0);
+        }
+        return target;
+    }
+
+    private static Path<?> joinAlias(JoinExpression join) {
+        Expression<?> target = join.getTarget();
+        if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+            Expression<?> alias = ((Operation<?>) target).getArg(1);
+            return alias instanceof Path ? (Path<?>) alias : null;
+        }
+        return null;
+    }
+
+    private static boolean isReferenced(JoinExpression join, Set<Path<?>> required) {
+        Path<?> alias = joinAlias(join);
+        // alias 없이 join 한 경우는 참조 여부를 알 수 없으므로 유지
+        return alias == null || required.contains(alias.getRoot());
+    }
+
+    private static boolean isToMany(JoinExpression join) {
+        Expression<?> source = joinSource(join);
+        return Collection.class.isAssignableFrom(source.getType()) || Map.class.isAssignableFrom(source.getType());
+    }
+
+    private static void collectRoots(Expression<?> expression, Set<Path<?>> roots) {
+        if (expression != null) {
+            expression.accept(RootCollector.INSTANCE, roots);
+        }
+    }
+
+    private static class RootCollector implements Visitor<Void, Set<Path<?>>> {
+
+        private static final RootCollector INSTANCE = new RootCollector();
+
+        @Override
+        public Void visit(Constant<?> expr, Set<Path<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Set<Path<?>> roots) {
+            for (Expression<?> arg : expr.getArgs()) {
+                arg.accept(this, roots);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Set<Path<?>> roots) {
+            for (Expression<?> arg : expr.getArgs()) {
+                arg.accept(this, roots);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Set<Path<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Set<Path<?>> roots) {
+            roots.add(expr.getRoot());
+            return null;
+        }
+
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Set<Path<?>> roots) {
+            QueryMetadata metadata = expr.getMetadata();
+            for (JoinExpression join : metadata.getJoins()) {
+                join.getTarget().accept(this, roots);
+                collectRoots(join.getCondition(), roots);
+            }
+            collectRoots(metadata.getWhere(), roots);
+            collectRoots(metadata.getHaving(), roots);
+            collectRoots(metadata.getProjection(), roots);
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Set<Path<?>> roots) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    ((Expression<?>) arg).accept(this, roots);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package study.querydesl.repository.support;
+
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 커서 토큰 인코딩/디코딩
+ * : 클라이언트에는 마지막 member_id 를 그대로 노출하지 않고 불투명한 문자열로 넘긴다.
+ */
+public final class CursorToken {
+
+    private static final String PREFIX = "id:";
+
+    private CursorToken() {
+    }
+
+    public static String encode(Long lastId) {
+        if (lastId == null) {
+            return null;
+        }
+        byte[] bytes = (PREFIX + lastId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public static Long decode(String cursor) {
+        if (!StringUtils.hasText(cursor)) {
+            return null;
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor, e);
+        }
+        if (!decoded.startsWith(PREFIX)) {
+            throw new InvalidCursorException(cursor, null);
+        }
+        try {
+            return Long.parseLong(decoded.substring(PREFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException(cursor, e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydesl.repository.support;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * 전체 건수가 추정값일 수 있는 Page
+ * : estimated 가 true 면 totalElements 는 "약 N건" 정도로만 사용해야 한다.
+ */
+public class EstimatedPage<T> extends PageImpl<T> {
+
+    private final boolean estimated;
+
+    public EstimatedPage(List<T> content, Pageable pageable, long total, boolean estimated) {
+        super(content, pageable, total);
+        this.estimated = estimated;
+    }
+
+    public boolean isEstimated() {
+        return estimated;
+    }
+}
@@ -0,0 +1,252 @@
+package study.querydesl.repository.support;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * int 키(나이 등) -> long id 정렬 인덱스
+ * - keys: 정렬된 서로 다른 키, postings[i]: keys[i] 를 가진 id 들 (정렬된 long[])
+ * - 키 버킷별 건수를 펜윅 트리로 들고 있어서 범위 건수와 범위 안의 n 번째 위치를 O(log k) 에 찾는다.
+ * - 결과 순서는 (키, id) 오름차순
+ * - id -> 키는 박싱 없는 LongIntHashMap 으로 들고 있다.
+ * 읽기는 동시에, 쓰기는 하나씩 (ReadWriteLock)
+ */
+public class IntRangeIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int[] keys = new int[0];
+    private long[][] postings = new long[0][];
+    private int[] sizes = new int[0];
+    private long[] tree = new long[1];
+    private final LongIntHashMap keyById = new LongIntHashMap();
+
+    public void put(long id, int key) {
+        lock.writeLock().lock();
+        try {
+            putLocked(id, key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * afterId &lt; id &lt;= lastId 구간을 ids/keys 로 바꾼다. (구간 안에 있지만 ids 에 없는 id 는 지운다)
+     * ids 는 오름차순이어야 한다.
+     */
+    public void replaceRange(long afterId, long lastId, long[] ids, int[] keys) {
+        lock.writeLock().lock();
+        try {
+            for (long id : keyById.keys(id -> id > afterId && id <= lastId)) {
+                if (Arrays.binarySearch(ids, id) < 0) {
+                    removeLocked(id);
+                }
+            }
+            for (int i = 0; i < ids.length; i++) {
+                putLocked(ids[i], keys[i]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return keyById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * from <= key <= to 인 id 건수
+     */
+    public long count(int from, int to) {
+        lock.readLock().lock();
+        try {
+            if (from > to) {
+                return 0;
+            }
+            return prefix(upperBound(to)) - prefix(lowerBound(from));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * from <= key <= to 인 id 중 offset 번째부터 limit 개
+     */
+    public long[] range(int from, int to, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            if (from > to || limit <= 0) {
+                return EMPTY;
+            }
+            int hi = upperBound(to);
+            long skip = prefix(lowerBound(from)) + offset;
+            long end = Math.min(prefix(hi), skip + limit);
+            if (skip >= end) {
+                return EMPTY;
+            }
+
+            long[] result = new long[(int) (end - skip)];
+            int bucket = findBucket(skip);
+            int position = (int) (skip - prefix(bucket));
+            int filled = 0;
+            while (filled < result.length) {
+                int copy = Math.min(sizes[bucket] - position, result.length - filled);
+                System.arraycopy(postings[bucket], position, result, filled, copy);
+                filled += copy;
+                bucket++;
+                position = 0;
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void putLocked(long id, int key) {
+        if (keyById.containsKey(id)) {
+            int previous = keyById.get(id, key);
+            if (previous == key) {
+                return;
+            }
+            removeFromBucket(id, previous);
+        }
+        addToBucket(id, key);
+        keyById.put(id, key);
+    }
+
+    private void removeLocked(long id) {
+        if (keyById.containsKey(id)) {
+            removeFromBucket(id, keyById.get(id, 0));
+            keyById.remove(id);
+        }
+    }
+
+    private void addToBucket(long id, int key) {
+        int bucket = Arrays.binarySearch(keys, key);
+        if (bucket < 0) {
+            bucket = insertBucket(-bucket - 1, key);
+        }
+        long[] ids = postings[bucket];
+        int size = sizes[bucket];
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(4, size * 2));
+            postings[bucket] = ids;
+        }
+        System.arraycopy(ids, position, ids, position + 1, size - position);
+        ids[position] = id;
+        sizes[bucket] = size + 1;
+        add(bucket, 1);
+    }
+
+    private void removeFromBucket(long id, int key) {
+        int bucket = Arrays.binarySearch(keys, key);
+        if (bucket < 0) {
+            return;
+        }
+        long[] ids = postings[bucket];
+        int size = sizes[bucket];
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        sizes[bucket] = size - 1;
+        add(bucket, -1);
+    }
+
+    // 새 키는 드물게 생기므로 배열을 늘리고 펜윅 트리를 다시 만든다. (빈 버킷은 지우지 않고 재사용)
+    private int insertBucket(int index, int key) {
+        int length = keys.length;
+        int[] newKeys = new int[length + 1];
+        long[][] newPostings = new long[length + 1][];
+        int[] newSizes = new int[length + 1];
+
+        System.arraycopy(keys, 0, newKeys, 0, index);
+        System.arraycopy(postings, 0, newPostings, 0, index);
+        System.arraycopy(sizes, 0, newSizes, 0, index);
+        newKeys[index] = key;
+        newPostings[index] = new long[4];
+        System.arraycopy(keys, index, newKeys, index + 1, length - index);
+        System.arraycopy(postings, index, newPostings, index + 1, length - index);
+        System.arraycopy(sizes, index, newSizes, index + 1, length - index);
+
+        keys = newKeys;
+        postings = newPostings;
+        sizes = newSizes;
+        rebuildTree();
+        return index;
+    }
+
+    private void rebuildTree() {
+        tree = new long[keys.length + 1];
+        for (int i = 0; i < sizes.length; i++) {
+            tree[i + 1] += sizes[i];
+            int parent = (i + 1) + ((i + 1) & -(i + 1));
+            if (parent < tree.length) {
+                tree[parent] += tree[i + 1];
+            }
+        }
+    }
+
+    private void add(int bucket, long delta) {
+        for (int i = bucket + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    // buckets [0, bucket) 의 건수 합
+    private long prefix(int bucket) {
+        long sum = 0;
+        for (int i = bucket; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    // prefix(b) <= skip < prefix(b + 1) 인 버킷 b
+    private int findBucket(long skip) {
+        int position = 0;
+        long remaining = skip;
+        for (int step = Integer.highestOneBit(Math.max(1, tree.length - 1)); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next < tree.length && tree[next] <= remaining) {
+                position = next;
+                remaining -= tree[next];
+            }
+        }
+        return position;
+    }
+
+    // key >= from 인 첫 버킷
+    private int lowerBound(int from) {
+        int index = Arrays.binarySearch(keys, from);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    // key > to 인 첫 버킷
+    private int upperBound(int to) {
+        int index = Arrays.binarySearch(keys, to);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+}
@@ -0,0 +1,13 @@
+package study.querydesl.repository.support;
+
+/**
+ * 디코딩할 수 없는 커서 토큰 (클라이언트가 만들었거나 잘린 값)
+ * : UnknownFieldException 과 같이 @Repository 예외 변환을 거치지 않도록 IllegalArgumentException 을 쓰지 않는다.
+ * (400 응답은 BadRequestExceptionHandler 가 만든다)
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String cursor, Throwable cause) {
+        super("Invalid cursor: " + cursor, cause);
+    }
+}
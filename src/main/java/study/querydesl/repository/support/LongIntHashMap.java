@@ -0,0 +1,146 @@
+package study.querydesl.repository.support;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * long -> int 해시맵 (오픈 어드레싱, 선형 탐사)
+ * : HashMap&lt;Long, Integer&gt; 는 항목마다 Node, Long, Integer 객체를 만들어서 회원 수만큼 들고 있기에는 무겁다.
+ * 여기서는 long[], int[] 두 배열에 그대로 담는다. 삭제는 뒤 항목을 당겨 채워서(backward shift) 묘비를 남기지 않는다.
+ * 동기화하지 않으므로 사용하는 쪽(IntRangeIndex, MemberColumnarStore)의 락 안에서만 사용한다.
+ */
+public final class LongIntHashMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int mask;
+    private int size;
+
+    public LongIntHashMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * 없으면 missing 을 반환한다.
+     */
+    public int get(long key, int missing) {
+        int slot = find(key);
+        return slot >= 0 ? values[slot] : missing;
+    }
+
+    public void put(long key, int value) {
+        int slot = slot(key);
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        // 적재율 1/2 를 넘으면 두 배로
+        if (++size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /**
+     * 지웠으면 true
+     */
+    public boolean remove(long key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+        int gap = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (!used[next]) {
+                break;
+            }
+            // next 의 원래 자리에서 next 까지 사이에 gap 이 있으면 gap 으로 당긴다.
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        used[gap] = false;
+        size--;
+        return true;
+    }
+
+    /**
+     * filter 를 만족하는 키 (순서 없음)
+     */
+    public long[] keys(LongPredicate filter) {
+        long[] result = new long[Math.min(size, 16)];
+        int count = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot] && filter.test(keys[slot])) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, Math.min(size, count * 2));
+                }
+                result[count++] = keys[slot];
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private int find(long key) {
+        int slot = slot(key);
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // 연속된 id 가 이웃 슬롯에 몰리지 않도록 섞는다.
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldUsed[slot]) {
+                int target = slot(oldKeys[slot]);
+                while (used[target]) {
+                    target = (target + 1) & mask;
+                }
+                used[target] = true;
+                keys[target] = oldKeys[slot];
+                values[target] = oldValues[slot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+}
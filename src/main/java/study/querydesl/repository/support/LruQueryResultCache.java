@@ -0,0 +1,73 @@
+package study.querydesl.repository.support;
+
+import org.springframework.util.Assert;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 크기 제한이 있는 LRU 조회 결과 캐시
+ * : 조회 도중 invalidateAll() 이 호출되면 그 결과는 저장하지 않는다. (무효화 이전 데이터일 수 있으므로)
+ */
+public class LruQueryResultCache implements QueryResultCache {
+
+    private final Map<Object, Object> entries;
+    private long generation;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public LruQueryResultCache(int maxSize) {
+        Assert.isTrue(maxSize > 0, "Max size must be greater than zero!");
+        this.entries = new LinkedHashMap<Object, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+                if (size() > maxSize) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Supplier<T> loader) {
+        long startGeneration;
+        synchronized (this) {
+            Object cached = entries.get(key);
+            if (cached != null) {
+                hitCount.incrementAndGet();
+                return (T) cached;
+            }
+            startGeneration = generation;
+        }
+        missCount.incrementAndGet();
+
+        // 조회는 락 밖에서
+        T value = loader.get();
+        if (value != null) {
+            synchronized (this) {
+                if (startGeneration == generation) {
+                    entries.put(key, value);
+                }
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    @Override
+    public synchronized CacheStats stats() {
+        return new CacheStats(hitCount.get(), missCount.get(), evictionCount.get(), entries.size());
+    }
+}
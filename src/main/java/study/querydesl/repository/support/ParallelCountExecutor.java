@@ -0,0 +1,145 @@
+package study.querydesl.repository.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 컨텐츠 쿼리와 count 쿼리를 동시에 실행
+ * : count 쿼리는 별도 스레드에서 새 읽기 전용 트랜잭션(= 별도 커넥션)으로 실행한다.
+ * 따라서 호출한 쪽 트랜잭션에서 아직 커밋하지 않은 변경은 count 에 보이지 않는다.
+ *
+ * 호출 스레드는 자기 커넥션을 쥔 채 count 를 기다리므로, 풀 스레드가 커넥션을 못 얻은 count 를 기다리면
+ * 커넥션 풀이 바닥났을 때 서로 기다리다 connection-timeout 까지 멈춘다.
+ * 그래서 풀 스레드는 커넥션을 얻은 다음에야 count 를 가져가고, 컨텐츠 조회가 끝났을 때 아직 아무도 가져가지 않은
+ * count(큐에서 대기 중, 커넥션 대기 중, 풀과 큐가 가득 차서 거절됨)는 호출 스레드가 자기 커넥션으로 직접 실행한다.
+ * (이 경우에는 호출한 쪽 트랜잭션의 변경이 count 에 보인다)
+ */
+@Component
+public class ParallelCountExecutor {
+
+    private final ExecutorService executor;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ParallelCountExecutor(PlatformTransactionManager transactionManager,
+                                 @Value("${querydsl.parallel-count.pool-size:4}") int poolSize,
+                                 @Value("${querydsl.parallel-count.queue-capacity:100}") int queueCapacity) {
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("parallel-count-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * count 를 먼저 비동기로 시작하고 컨텐츠를 조회한 뒤 Page 를 만든다.
+     * PageableExecutionUtils 가 count 가 필요 없다고 판단하면 기다리지 않고, 아직 시작하지 않은 count 는 실행하지 않는다.
+     * (이미 실행 중인 count 쿼리는 멈추지 못하므로 끝날 때까지 풀 스레드 하나를 쓴다)
+     */
+    public <T> Page<T> getPage(Pageable pageable, Supplier<List<T>> content, LongSupplier count) {
+        if (pageable.isUnpaged()) {
+            return PageableExecutionUtils.getPage(content.get(), pageable, count);
+        }
+
+        CountTask task = new CountTask(count);
+        try {
+            executor.execute(task::runInWorker);
+        } catch (RejectedExecutionException e) {
+            // 풀과 큐가 가득 차면 미리 시작하지 않는다. (필요하면 호출 스레드가 실행)
+        }
+
+        List<T> result;
+        try {
+            result = content.get();
+        } catch (RuntimeException e) {
+            task.cancel();
+            throw e;
+        }
+
+        Page<T> page = PageableExecutionUtils.getPage(result, pageable, task::get);
+        // 필요 없었으면 대기 중인 count 가 실행되지 않도록 표시
+        task.cancel();
+        return page;
+    }
+
+    /**
+     * count 하나를 풀 스레드와 호출 스레드 중 먼저 가져간 쪽이 실행한다.
+     */
+    private final class CountTask {
+
+        private static final int WAITING = 0;
+        private static final int WORKER = 1;
+        private static final int CALLER = 2;
+
+        private final LongSupplier count;
+        private final AtomicInteger owner = new AtomicInteger(WAITING);
+        private final CompletableFuture<Long> total = new CompletableFuture<>();
+
+        private CountTask(LongSupplier count) {
+            this.count = count;
+        }
+
+        private void runInWorker() {
+            if (owner.get() != WAITING) {
+                return;
+            }
+            try {
+                Long result = readOnlyTransaction.execute(status ->
+                        // 트랜잭션을 시작했으면 커넥션을 얻은 것이므로 이제 가져간다.
+                        owner.compareAndSet(WAITING, WORKER) ? count.getAsLong() : null);
+                if (owner.get() == WORKER) {
+                    total.complete(result != null ? result : 0L);
+                }
+            } catch (Throwable e) {
+                total.completeExceptionally(e);
+            }
+        }
+
+        private long get() {
+            if (owner.compareAndSet(WAITING, CALLER)) {
+                return count.getAsLong();
+            }
+            // 풀 스레드가 커넥션을 쥐고 실행 중이므로 끝날 때까지 기다린다.
+            try {
+                Long result = total.join();
+                return result != null ? result : 0L;
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        private void cancel() {
+            owner.compareAndSet(WAITING, CALLER);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
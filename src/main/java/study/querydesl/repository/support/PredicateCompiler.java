@@ -0,0 +1,260 @@
+package study.querydesl.repository.support;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.ComparablePath;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.core.types.dsl.PathBuilder;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * &#64;SearchField 가 붙은 검색 조건 DTO 를 where 조건으로 변환
+ * : 클래스마다 한 번만 리플렉션으로 필드/게터를 분석해서 실행 계획(Plan)을 만들어 두고,
+ * 요청마다는 MethodHandle 로 값만 읽는다.
+ * <p>
+ * QueryTemplate 과 같이 쓸 때는 shapeOf(조건이 있는 필드 비트) 로 템플릿을 고르고,
+ * templatePredicate(Param 으로 만든 조건) / paramsOf(Param 값) 를 사용한다.
+ */
+public class PredicateCompiler {
+
+    private final PathBuilder<?> root;
+    private final Map<String, PathBuilder<?>> aliases = new HashMap<>();
+    private final Map<Class<?>, Plan> plans = new ConcurrentHashMap<>();
+
+    public PredicateCompiler(EntityPath<?> root, EntityPath<?>... joinAliases) {
+        this.root = new PathBuilder<>(root.getType(), root.getMetadata());
+        for (EntityPath<?> alias : joinAliases) {
+            aliases.put(alias.getMetadata().getName(), new PathBuilder<>(alias.getType(), alias.getMetadata()));
+        }
+    }
+
+    /**
+     * 조건 값을 그대로 사용한 where 조건
+     */
+    public Predicate predicate(Object condition) {
+        BooleanBuilder builder = new BooleanBuilder();
+        for (FieldPlan field : planOf(condition.getClass()).fields) {
+            Object value = field.read(condition);
+            if (hasValue(value)) {
+                builder.and(field.predicate(value));
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * 값이 있는 필드들의 비트 (템플릿 캐시의 키로 사용)
+     */
+    public long shapeOf(Object condition) {
+        long shape = 0;
+        List<FieldPlan> fields = planOf(condition.getClass()).fields;
+        for (int i = 0; i < fields.size(); i++) {
+            if (hasValue(fields.get(i).read(condition))) {
+                shape |= 1L << i;
+            }
+        }
+        return shape;
+    }
+
+    /**
+     * shape 에 해당하는 필드만 Param 으로 만든 where 조건
+     */
+    public Predicate templatePredicate(Class<?> conditionType, long shape) {
+        BooleanBuilder builder = new BooleanBuilder();
+        List<FieldPlan> fields = planOf(conditionType).fields;
+        for (int i = 0; i < fields.size(); i++) {
+            if ((shape & (1L << i)) != 0) {
+                builder.and(fields.get(i).templatePredicate);
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * templatePredicate 의 Param 에 바인딩할 값
+     */
+    public Map<ParamExpression<?>, Object> paramsOf(Object condition) {
+        Map<ParamExpression<?>, Object> params = new HashMap<>();
+        for (FieldPlan field : planOf(condition.getClass()).fields) {
+            Object value = field.read(condition);
+            if (hasValue(value)) {
+                params.put(field.param, value);
+            }
+        }
+        return params;
+    }
+
+    /**
+     * 조건 필드 수 (가능한 shape 는 0 ~ 2^fieldCount - 1)
+     */
+    public int fieldCount(Class<?> conditionType) {
+        return planOf(conditionType).fields.size();
+    }
+
+    /**
+     * shape 에 해당하는 조건 중 조인 alias 를 참조하는 것이 있는지
+     * : 있으면 그 alias 가 null 인 row 는 어차피 걸러지므로 left join 대신 inner join 을 써도 된다.
+     */
+    public boolean references(Class<?> conditionType, long shape, EntityPath<?> alias) {
+        String name = alias.getMetadata().getName();
+        List<FieldPlan> fields = planOf(conditionType).fields;
+        for (int i = 0; i < fields.size(); i++) {
+            if ((shape & (1L << i)) != 0 && name.equals(fields.get(i).alias)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Plan planOf(Class<?> conditionType) {
+        return plans.computeIfAbsent(conditionType, this::compile);
+    }
+
+    private Plan compile(Class<?> conditionType) {
+        List<FieldPlan> fields = new ArrayList<>();
+        ReflectionUtils.doWithFields(conditionType, field -> fields.add(compileField(conditionType, field)),
+                field -> field.isAnnotationPresent(SearchField.class));
+        Assert.isTrue(fields.size() <= Long.SIZE, "Too many @SearchField fields in " + conditionType.getName());
+        return new Plan(fields);
+    }
+
+    private FieldPlan compileField(Class<?> conditionType, Field field) {
+        SearchField searchField = field.getAnnotation(SearchField.class);
+        String path = StringUtils.hasText(searchField.path()) ? searchField.path() : field.getName();
+
+        PropertyDescriptor property = BeanUtils.getPropertyDescriptor(conditionType, field.getName());
+        if (property == null || property.getReadMethod() == null) {
+            throw new IllegalStateException("No getter for @SearchField " + conditionType.getName() + "." + field.getName());
+        }
+
+        MethodHandle getter;
+        try {
+            getter = MethodHandles.publicLookup()
+                    .unreflect(property.getReadMethod())
+                    .asType(MethodType.methodType(Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access getter of " + conditionType.getName() + "." + field.getName(), e);
+        }
+
+        Param<Object> param = new Param<>(Object.class, field.getName());
+        return new FieldPlan(getter, resolve(path), aliasOf(path), searchField.op(), param);
+    }
+
+    // "team.name" -> team alias 가 있으면 team.name, 없으면 root.team.name
+    private PathBuilder<Object> resolve(String path) {
+        String[] names = path.split("\\.");
+        PathBuilder<?> current = root;
+        int start = 0;
+        if (names.length > 1 && aliases.containsKey(names[0])) {
+            current = aliases.get(names[0]);
+            start = 1;
+        }
+        PathBuilder<Object> result = null;
+        for (int i = start; i < names.length; i++) {
+            result = current.get(names[i]);
+            current = result;
+        }
+        Assert.notNull(result, "Invalid @SearchField path: " + path);
+        return result;
+    }
+
+    private String aliasOf(String path) {
+        String first = path.split("\\.")[0];
+        return !first.equals(path) && aliases.containsKey(first) ? first : null;
+    }
+
+    private static boolean hasValue(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof String) {
+            return StringUtils.hasText((String) value);
+        }
+        if (value instanceof Collection) {
+            return !((Collection<?>) value).isEmpty();
+        }
+        return true;
+    }
+
+    private static class Plan {
+        private final List<FieldPlan> fields;
+
+        private Plan(List<FieldPlan> fields) {
+            this.fields = fields;
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static class FieldPlan {
+        private final MethodHandle getter;
+        private final PathBuilder<Object> path;
+        private final String alias;
+        private final ComparablePath comparablePath;
+        private final SearchField.Op op;
+        private final Param<Object> param;
+        private final Predicate templatePredicate;
+
+        private FieldPlan(MethodHandle getter, PathBuilder<Object> path, String alias, SearchField.Op op,
+                          Param<Object> param) {
+            this.getter = getter;
+            this.path = path;
+            this.alias = alias;
+            this.comparablePath = Expressions.comparablePath(Comparable.class, path.getMetadata());
+            this.op = op;
+            this.param = param;
+            this.templatePredicate = toPredicate(param);
+        }
+
+        private Object read(Object condition) {
+            try {
+                return (Object) getter.invokeExact(condition);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private Predicate predicate(Object value) {
+            return toPredicate(Expressions.constant(value));
+        }
+
+        // value 는 상수 또는 Param
+        private BooleanExpression toPredicate(Expression value) {
+            switch (op) {
+                case GOE:
+                    return comparablePath.goe(value);
+                case LOE:
+                    return comparablePath.loe(value);
+                case LIKE:
+                    return Expressions.booleanOperation(Ops.LIKE, path, value);
+                case IN:
+                    return Expressions.booleanOperation(Ops.IN, path, value);
+                case EQ:
+                default:
+                    return path.eq(value);
+            }
+        }
+    }
+}
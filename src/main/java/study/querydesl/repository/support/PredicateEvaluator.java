@@ -0,0 +1,423 @@
+package study.querydesl.repository.support;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.ParamNotSetException;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.PathType;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import org.springframework.beans.BeanUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Querydsl Predicate 를 메모리의 객체(엔티티 또는 DTO)에 직접 평가
+ * : DB 에 보내는 것과 같은 BooleanExpression 을 그대로 써서 캐시해 둔 목록을 거를 수 있다.
+ * <p>
+ * - 식 트리를 한 번만 분석해서 Matcher(게터 MethodHandle + 연산 함수 트리)로 만들어 두고 재사용한다.
+ * - null 비교는 SQL 과 같이 unknown 으로 처리한다. (and/or/not 도 3값 논리, 최종적으로 true 만 통과)
+ * - 경로는 루트 엔티티 기준 프로퍼티 체인으로 읽는다. 조인 alias(team)나 DTO 필드처럼 이름이 다른 경로는 bind 로 지정한다.
+ * - 지원하지 않는 연산자(서브쿼리, 템플릿 등)는 컴파일할 때 예외를 던진다. (결과가 DB 와 달라지지 않도록)
+ */
+public class PredicateEvaluator<T> {
+
+    /**
+     * 컴파일된 조건
+     */
+    public interface Matcher<T> extends java.util.function.Predicate<T> {
+
+        boolean test(T row, Map<ParamExpression<?>, Object> params);
+
+        @Override
+        default boolean test(T row) {
+            return test(row, Collections.emptyMap());
+        }
+
+        default java.util.function.Predicate<T> with(Map<ParamExpression<?>, Object> params) {
+            return row -> test(row, params);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Node {
+        Object eval(Object row, Map<ParamExpression<?>, Object> params);
+    }
+
+    private final Class<T> rowType;
+    private final Path<?> root;
+    private final Map<Path<?>, String> bindings = new HashMap<>();
+
+    private PredicateEvaluator(Class<T> rowType, Path<?> root) {
+        this.rowType = rowType;
+        this.root = root;
+    }
+
+    /**
+     * 엔티티 목록용: root 경로(member)가 곧 row 이다.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PredicateEvaluator<T> forEntity(EntityPath<T> root) {
+        return new PredicateEvaluator<>((Class<T>) root.getType(), root);
+    }
+
+    /**
+     * DTO 등 엔티티가 아닌 목록용: 사용하는 경로를 bind 로 DTO 프로퍼티에 연결해야 한다.
+     */
+    public static <T> PredicateEvaluator<T> forType(Class<T> rowType) {
+        return new PredicateEvaluator<>(rowType, null);
+    }
+
+    /**
+     * path 의 값을 row 의 프로퍼티 체인("team.name" 등)에서 읽는다.
+     * 예) bind(team, "team"), bind(team.name, "teamName")
+     */
+    public PredicateEvaluator<T> bind(Path<?> path, String property) {
+        bindings.put(path, property);
+        return this;
+    }
+
+    /**
+     * 반환된 Matcher 를 재사용해야 분석 비용이 한 번만 든다.
+     * (값이 바뀌는 조건은 Param 으로 만들고 Matcher.with(params) 로 값을 넘긴다.)
+     */
+    public Matcher<T> compile(Predicate predicate) {
+        Expression<?> expression = predicate instanceof BooleanBuilder
+                ? ((BooleanBuilder) predicate).getValue()
+                : predicate;
+        if (expression == null) {
+            return (row, params) -> true;
+        }
+        Node node = expression.accept(new Compiler(), null);
+        return (row, params) -> Boolean.TRUE.equals(node.eval(row, params));
+    }
+
+    public static <T> List<T> filter(Collection<T> rows, java.util.function.Predicate<? super T> matcher) {
+        List<T> result = new ArrayList<>();
+        for (T row : rows) {
+            if (matcher.test(row)) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    private class Compiler implements Visitor<Node, Void> {
+
+        @Override
+        public Node visit(Constant<?> expr, Void context) {
+            Object value = expr.getConstant();
+            return (row, params) -> value;
+        }
+
+        @Override
+        public Node visit(ParamExpression<?> expr, Void context) {
+            return (row, params) -> {
+                if (!params.containsKey(expr)) {
+                    throw new ParamNotSetException(expr);
+                }
+                return params.get(expr);
+            };
+        }
+
+        @Override
+        public Node visit(Path<?> expr, Void context) {
+            String bound = bindings.get(expr);
+            if (bound != null) {
+                return getterChain(rowType, bound);
+            }
+            if (expr.equals(root)) {
+                return (row, params) -> row;
+            }
+            PathMetadata metadata = expr.getMetadata();
+            Path<?> parent = metadata.getParent();
+            if (parent == null || metadata.getPathType() != PathType.PROPERTY) {
+                throw new UnsupportedOperationException("Unbound path: " + expr);
+            }
+            Node parentNode = visit(parent, context);
+            MethodHandle getter = getter(parent.getType(), metadata.getName());
+            return (row, params) -> {
+                Object owner = parentNode.eval(row, params);
+                return owner == null ? null : invoke(getter, owner);
+            };
+        }
+
+        @Override
+        public Node visit(Operation<?> expr, Void context) {
+            Operator op = expr.getOperator();
+            List<Node> args = new ArrayList<>();
+            for (Expression<?> arg : expr.getArgs()) {
+                args.add(arg.accept(this, context));
+            }
+
+            if (op == Ops.AND) {
+                return (row, params) -> and(args.get(0).eval(row, params), () -> args.get(1).eval(row, params));
+            }
+            if (op == Ops.OR) {
+                return (row, params) -> or(args.get(0).eval(row, params), () -> args.get(1).eval(row, params));
+            }
+            if (op == Ops.NOT) {
+                return (row, params) -> {
+                    Object value = args.get(0).eval(row, params);
+                    return value == null ? null : !(Boolean) value;
+                };
+            }
+            if (op == Ops.IS_NULL) {
+                return (row, params) -> args.get(0).eval(row, params) == null;
+            }
+            if (op == Ops.IS_NOT_NULL) {
+                return (row, params) -> args.get(0).eval(row, params) != null;
+            }
+            if (op == Ops.IN || op == Ops.NOT_IN) {
+                boolean negate = op == Ops.NOT_IN;
+                return (row, params) -> {
+                    Object value = args.get(0).eval(row, params);
+                    Object candidates = args.get(1).eval(row, params);
+                    if (value == null || candidates == null) {
+                        return null;
+                    }
+                    boolean found = false;
+                    for (Object candidate : (Collection<?>) candidates) {
+                        if (candidate != null && compare(value, candidate) == 0) {
+                            found = true;
+                            break;
+                        }
+                    }
+                    return found != negate;
+                };
+            }
+            if (op == Ops.BETWEEN) {
+                return (row, params) -> {
+                    Object value = args.get(0).eval(row, params);
+                    Object from = args.get(1).eval(row, params);
+                    Object to = args.get(2).eval(row, params);
+                    if (value == null || from == null || to == null) {
+                        return null;
+                    }
+                    return compare(value, from) >= 0 && compare(value, to) <= 0;
+                };
+            }
+            if (op == Ops.LIKE || op == Ops.LIKE_IC || op == Ops.LIKE_ESCAPE || op == Ops.LIKE_ESCAPE_IC) {
+                boolean ignoreCase = op == Ops.LIKE_IC || op == Ops.LIKE_ESCAPE_IC;
+                Node escapeNode = args.size() > 2 ? args.get(2) : null;
+                // 패턴은 보통 파라미터라서 행마다 같으므로 노드마다 마지막으로 컴파일한 패턴 하나만 재사용한다.
+                AtomicReference<LikePattern> last = new AtomicReference<>();
+                return (row, params) -> {
+                    Object value = args.get(0).eval(row, params);
+                    Object pattern = args.get(1).eval(row, params);
+                    if (value == null || pattern == null) {
+                        return null;
+                    }
+                    Object escape = escapeNode != null ? escapeNode.eval(row, params) : null;
+                    String like = pattern.toString();
+                    Character escapeChar = escape != null ? escape.toString().charAt(0) : null;
+                    LikePattern compiled = last.get();
+                    if (compiled == null || !compiled.isFor(like, escapeChar)) {
+                        compiled = new LikePattern(like, escapeChar, ignoreCase);
+                        last.set(compiled);
+                    }
+                    return compiled.pattern.matcher(value.toString()).matches();
+                };
+            }
+            if (op == Ops.STRING_CONTAINS || op == Ops.STRING_CONTAINS_IC
+                    || op == Ops.STARTS_WITH || op == Ops.STARTS_WITH_IC
+                    || op == Ops.ENDS_WITH || op == Ops.ENDS_WITH_IC
+                    || op == Ops.EQ_IGNORE_CASE) {
+                return stringOperation(op, args.get(0), args.get(1));
+            }
+
+            IntPredicate comparison = comparison(op);
+            if (comparison == null) {
+                throw new UnsupportedOperationException("Unsupported operator: " + op);
+            }
+            return (row, params) -> {
+                Object left = args.get(0).eval(row, params);
+                Object right = args.get(1).eval(row, params);
+                if (left == null || right == null) {
+                    return null;
+                }
+                return comparison.test(compare(left, right));
+            };
+        }
+
+        @Override
+        public Node visit(FactoryExpression<?> expr, Void context) {
+            throw new UnsupportedOperationException("Projection is not a predicate: " + expr);
+        }
+
+        @Override
+        public Node visit(SubQueryExpression<?> expr, Void context) {
+            throw new UnsupportedOperationException("Sub query can not be evaluated in memory: " + expr);
+        }
+
+        @Override
+        public Node visit(TemplateExpression<?> expr, Void context) {
+            throw new UnsupportedOperationException("Template can not be evaluated in memory: " + expr);
+        }
+    }
+
+    // compare 결과에 대한 조건
+    private static IntPredicate comparison(Operator op) {
+        if (op == Ops.EQ) return result -> result == 0;
+        if (op == Ops.NE) return result -> result != 0;
+        if (op == Ops.GT) return result -> result > 0;
+        if (op == Ops.GOE) return result -> result >= 0;
+        if (op == Ops.LT) return result -> result < 0;
+        if (op == Ops.LOE) return result -> result <= 0;
+        return null;
+    }
+
+    private static Node stringOperation(Operator op, Node valueNode, Node argumentNode) {
+        boolean ignoreCase = op == Ops.STRING_CONTAINS_IC || op == Ops.STARTS_WITH_IC
+                || op == Ops.ENDS_WITH_IC || op == Ops.EQ_IGNORE_CASE;
+        return (row, params) -> {
+            Object value = valueNode.eval(row, params);
+            Object argument = argumentNode.eval(row, params);
+            if (value == null || argument == null) {
+                return null;
+            }
+            String text = ignoreCase ? value.toString().toLowerCase(Locale.ROOT) : value.toString();
+            String other = ignoreCase ? argument.toString().toLowerCase(Locale.ROOT) : argument.toString();
+            if (op == Ops.STRING_CONTAINS || op == Ops.STRING_CONTAINS_IC) {
+                return text.contains(other);
+            }
+            if (op == Ops.STARTS_WITH || op == Ops.STARTS_WITH_IC) {
+                return text.startsWith(other);
+            }
+            if (op == Ops.ENDS_WITH || op == Ops.ENDS_WITH_IC) {
+                return text.endsWith(other);
+            }
+            return text.equals(other);
+        };
+    }
+
+    // SQL 3값 논리
+    private static Object and(Object left, Supplier<Object> right) {
+        if (Boolean.FALSE.equals(left)) {
+            return false;
+        }
+        Object value = right.get();
+        if (Boolean.FALSE.equals(value)) {
+            return false;
+        }
+        return left == null || value == null ? null : true;
+    }
+
+    private static Object or(Object left, Supplier<Object> right) {
+        if (Boolean.TRUE.equals(left)) {
+            return true;
+        }
+        Object value = right.get();
+        if (Boolean.TRUE.equals(value)) {
+            return true;
+        }
+        return left == null || value == null ? null : false;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number && left.getClass() != right.getClass()) {
+            return new BigDecimal(left.toString()).compareTo(new BigDecimal(right.toString()));
+        }
+        if (left instanceof Comparable) {
+            return ((Comparable) left).compareTo(right);
+        }
+        // 엔티티 비교 등
+        return Objects.equals(left, right) ? 0 : 1;
+    }
+
+    private static final class LikePattern {
+
+        private final String like;
+        private final Character escape;
+        private final Pattern pattern;
+
+        LikePattern(String like, Character escape, boolean ignoreCase) {
+            this.like = like;
+            this.escape = escape;
+            StringBuilder regex = new StringBuilder();
+            for (int i = 0; i < like.length(); i++) {
+                char c = like.charAt(i);
+                if (escape != null && c == escape && i + 1 < like.length()) {
+                    regex.append(Pattern.quote(String.valueOf(like.charAt(++i))));
+                } else if (c == '%') {
+                    regex.append(".*");
+                } else if (c == '_') {
+                    regex.append('.');
+                } else {
+                    regex.append(Pattern.quote(String.valueOf(c)));
+                }
+            }
+            this.pattern = Pattern.compile(regex.toString(), ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.DOTALL : Pattern.DOTALL);
+        }
+
+        boolean isFor(String like, Character escape) {
+            return this.like.equals(like) && Objects.equals(this.escape, escape);
+        }
+    }
+
+    private static Node getterChain(Class<?> type, String property) {
+        Node node = (row, params) -> row;
+        Class<?> current = type;
+        for (String name : property.split("\\.")) {
+            MethodHandle getter = getter(current, name);
+            Node owner = node;
+            node = (row, params) -> {
+                Object value = owner.eval(row, params);
+                return value == null ? null : invoke(getter, value);
+            };
+            current = BeanUtils.getPropertyDescriptor(current, name).getPropertyType();
+        }
+        return node;
+    }
+
+    private static MethodHandle getter(Class<?> type, String name) {
+        PropertyDescriptor property = BeanUtils.getPropertyDescriptor(type, name);
+        if (property == null || property.getReadMethod() == null) {
+            throw new IllegalStateException("No getter for " + type.getName() + "." + name);
+        }
+        try {
+            return MethodHandles.publicLookup()
+                    .unreflect(property.getReadMethod())
+                    .asType(MethodType.methodType(Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access getter of " + type.getName() + "." + name, e);
+        }
+    }
+
+    private static Object invoke(MethodHandle getter, Object target) {
+        try {
+            return (Object) getter.invokeExact(target);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package study.querydesl.repository.support;
+
+import java.util.function.Supplier;
+
+/**
+ * 조회 결과 캐시
+ * : 기본 구현은 LruQueryResultCache 이고, 다른 구현을 빈으로 등록하면 그걸 사용한다.
+ */
+public interface QueryResultCache {
+
+    /**
+     * 캐시에 있으면 반환하고, 없으면 loader 로 조회해서 저장한다.
+     */
+    <T> T get(Object key, Supplier<T> loader);
+
+    void invalidateAll();
+
+    CacheStats stats();
+}
@@ -0,0 +1,75 @@
+package study.querydesl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.FactoryExpressionUtils;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.jpa.impl.JPAUtil;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 미리 JPQL 로 직렬화해 둔 쿼리
+ * : 조회할 때는 Param 값만 바인딩하므로 Querydsl 직렬화를 다시 하지 않고,
+ * JPQL 문자열이 항상 같아서 하이버네이트 쿼리 플랜 캐시에도 그대로 적중한다.
+ */
+public class QueryTemplate<T> {
+
+    private final EntityManager em;
+    private final String jpql;
+    private final List<Object> constants;
+    private final FactoryExpression<T> factory;
+
+    QueryTemplate(EntityManager em, String jpql, List<Object> constants, Expression<T> projection) {
+        this.em = em;
+        this.jpql = jpql;
+        this.constants = constants;
+        this.factory = projection instanceof FactoryExpression
+                ? FactoryExpressionUtils.wrap((FactoryExpression<T>) projection)
+                : null;
+    }
+
+    public String getJpql() {
+        return jpql;
+    }
+
+    public List<T> fetch(Map<ParamExpression<?>, Object> params) {
+        return transform(createQuery(params).getResultList());
+    }
+
+    public List<T> fetch(Map<ParamExpression<?>, Object> params, long offset, long limit) {
+        Query query = createQuery(params);
+        query.setFirstResult(Math.toIntExact(offset));
+        query.setMaxResults(Math.toIntExact(limit));
+        return transform(query.getResultList());
+    }
+
+    public T fetchOne(Map<ParamExpression<?>, Object> params) {
+        List<T> result = fetch(params, 0, 1);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    private Query createQuery(Map<ParamExpression<?>, Object> params) {
+        Query query = em.createQuery(jpql);
+        JPAUtil.setConstants(query, constants, params);
+        return query;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> transform(List<?> rows) {
+        if (factory == null) {
+            return (List<T>) rows;
+        }
+        List<T> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            result.add(row instanceof Object[]
+                    ? factory.newInstance((Object[]) row)
+                    : factory.newInstance(row));
+        }
+        return result;
+    }
+}
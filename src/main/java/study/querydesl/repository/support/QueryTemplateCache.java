@@ -0,0 +1,48 @@
+package study.querydesl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 쿼리 모양(shape)별 QueryTemplate 캐시
+ * : 동적 조건이 n 개면 모양은 최대 2^n 가지이므로, 모양마다 한 번만 Querydsl 로 만들고 직렬화한다.
+ * 조건 값은 상수 대신 Param 으로 넣어서 만들어야 한다.
+ * <pre>
+ * QueryTemplate&lt;Member&gt; template = templates.get(shape, () -&gt; selectFrom(member).where(member.username.eq(USERNAME)));
+ * template.fetch(Collections.singletonMap(USERNAME, "member1"));
+ * </pre>
+ */
+public class QueryTemplateCache {
+
+    private final EntityManager em;
+    private final Map<Object, QueryTemplate<?>> templates = new ConcurrentHashMap<>();
+
+    public QueryTemplateCache(EntityManager em) {
+        this.em = em;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> QueryTemplate<T> get(Object shape, Supplier<JPAQuery<T>> query) {
+        return (QueryTemplate<T>) templates.computeIfAbsent(shape, key -> compile(query.get()));
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> QueryTemplate<T> compile(JPAQuery<T> query) {
+        JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+        serializer.serialize(query.getMetadata(), false, null);
+        Expression<T> projection = (Expression<T>) query.getMetadata().getProjection();
+        return new QueryTemplate<>(em, serializer.toString(), new ArrayList<>(serializer.getConstants()), projection);
+    }
+}
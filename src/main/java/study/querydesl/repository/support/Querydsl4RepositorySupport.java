@@ -8,6 +8,8 @@ import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import
         org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
@@ -19,7 +21,13 @@ import org.springframework.util.Assert;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
 /**
@@ -34,6 +42,9 @@ public abstract class Querydsl4RepositorySupport {
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private ParallelCountExecutor parallelCountExecutor;
+    private QueryTemplateCache queryTemplates;
+    private EntityPath<?> domainPath;
 
     public Querydsl4RepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class must not be null!");
@@ -47,10 +58,17 @@ public abstract class Querydsl4RepositorySupport {
                 JpaEntityInformationSupport.getEntityInformation(domainClass, entityManager);
         SimpleEntityPathResolver resolver = SimpleEntityPathResolver.INSTANCE;
         EntityPath path = resolver.createPath(entityInformation.getJavaType());
+        this.domainPath = path;
         this.entityManager = entityManager;
         this.querydsl = new Querydsl(entityManager, new
                 PathBuilder<>(path.getType(), path.getMetadata()));
         this.queryFactory = new JPAQueryFactory(entityManager);
+        this.queryTemplates = new QueryTemplateCache(entityManager);
+    }
+
+    @Autowired(required = false)
+    public void setParallelCountExecutor(ParallelCountExecutor parallelCountExecutor) {
+        this.parallelCountExecutor = parallelCountExecutor;
     }
 
     @PostConstruct
@@ -80,13 +98,52 @@ public abstract class Querydsl4RepositorySupport {
         return getQueryFactory().selectFrom(from);
     }
 
+    /**
+     * 도메인 엔티티 목록에 Querydsl Predicate 를 메모리에서 평가하는 evaluator
+     * : 조인 alias 를 쓰는 조건이면 bind(team, "team") 처럼 엔티티 프로퍼티에 연결해야 한다.
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> PredicateEvaluator<T> predicateEvaluator() {
+        return PredicateEvaluator.forEntity((EntityPath<T>) domainPath);
+    }
+
+    /**
+     * 캐시해 둔 목록을 DB 조회 없이 컴파일된 조건으로 거른다.
+     */
+    protected <T> List<T> applyPredicate(Collection<T> cached, java.util.function.Predicate<? super T> matcher) {
+        return PredicateEvaluator.filter(cached, matcher);
+    }
+
+    /**
+     * 쿼리 모양(shape)별로 한 번만 직렬화해 두고 Param 값만 바꿔서 실행하는 쿼리
+     * : 조건 값은 상수 대신 Param 으로 넣어서 만들어야 한다.
+     */
+    protected <T> QueryTemplate<T> queryTemplate(Object shape, Function<JPAQueryFactory, JPAQuery<T>> query) {
+        return queryTemplates.get(shape, () -> query.apply(getQueryFactory()));
+    }
+
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery) {
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
         List<T> content = getQuerydsl().applyPagination(pageable,
                 jpaQuery).fetch();
         return PageableExecutionUtils.getPage(content, pageable,
-                jpaQuery::fetchCount);
+                () -> count(jpaQuery));
+    }
+
+    /**
+     * 컨텐츠 쿼리에서 order by, fetch join, 참조하지 않는 left join 을 걷어낸 count 쿼리
+     */
+    protected JPAQuery<Long> createCountQuery(JPAQuery<?> contentQuery) {
+        return CountQueryBuilder.from(getEntityManager(), contentQuery);
+    }
+
+    private long count(JPAQuery<?> contentQuery) {
+        if (!CountQueryBuilder.canDerive(contentQuery)) {
+            return contentQuery.fetchCount();
+        }
+        Long count = createCountQuery(contentQuery).fetchOne();
+        return count != null ? count : 0L;
     }
 
     protected <T> Page<T> applyPagination(Pageable pageable,
@@ -99,4 +156,76 @@ public abstract class Querydsl4RepositorySupport {
         return PageableExecutionUtils.getPage(content, pageable,
                 countResult::fetchCount);
     }
-}
\ No newline at end of file
+
+    /**
+     * applyPagination 과 같지만 count 쿼리를 별도 커넥션에서 컨텐츠 쿼리와 동시에 실행한다.
+     * (ParallelCountExecutor 가 없으면 순차 실행)
+     */
+    protected <T> Page<T> applyPaginationParallel(Pageable pageable,
+                                                  Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
+            JPAQuery> countQuery) {
+        if (parallelCountExecutor == null) {
+            return applyPagination(pageable, contentQuery, countQuery);
+        }
+        JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
+        JPAQuery countResult = countQuery.apply(getQueryFactory());
+        return parallelCountExecutor.getPage(pageable,
+                () -> getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch(),
+                countResult::fetchCount);
+    }
+
+    /**
+     * count 쿼리 없이 pageSize + 1 건을 조회해서 Slice 로 반환 (무한 스크롤 등 다음 페이지 여부만 필요할 때)
+     */
+    protected <T> Slice<T> applySlice(Pageable pageable,
+                                      Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        JPAQuery<T> jpaQuery = contentQuery.apply(getQueryFactory());
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(jpaQuery.fetch(), pageable, false);
+        }
+        getQuerydsl().applySorting(pageable.getSort(), jpaQuery);
+        List<T> content = jpaQuery
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1)
+                .fetch();
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = new ArrayList<>(content.subList(0, pageable.getPageSize()));
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    /**
+     * 2단계(deferred join) 페이징
+     * 1. idQuery 로 조건/정렬/offset/limit 를 적용해서 id 만 조회 (인덱스만으로 처리 가능)
+     * 2. contentQuery 로 해당 id 들의 전체 데이터를 조회하고 1단계 순서대로 다시 정렬
+     * count 는 idQuery 에서 만든다. (참조하지 않는 left join 제거)
+     */
+    protected <T, ID> Page<T> applyDeferredJoinPagination(Pageable pageable,
+                                                          Function<JPAQueryFactory, JPAQuery<ID>> idQuery,
+                                                          BiFunction<JPAQueryFactory, List<ID>, JPAQuery<T>> contentQuery,
+                                                          Function<T, ID> idMapper) {
+        JPAQuery<ID> jpaIdQuery = idQuery.apply(getQueryFactory());
+        List<ID> ids = getQuerydsl().applyPagination(pageable, jpaIdQuery).fetch();
+
+        List<T> content = ids.isEmpty()
+                ? Collections.emptyList()
+                : orderByIds(contentQuery.apply(getQueryFactory(), ids).fetch(), ids, idMapper);
+
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> count(jpaIdQuery));
+    }
+
+    private <T, ID> List<T> orderByIds(List<T> rows, List<ID> ids, Function<T, ID> idMapper) {
+        Map<ID, Integer> positions = new HashMap<>(ids.size() * 2);
+        for (int i = 0; i < ids.size(); i++) {
+            positions.put(ids.get(i), i);
+        }
+        List<T> ordered = new ArrayList<>(rows);
+        ordered.sort((a, b) -> Integer.compare(
+                positions.getOrDefault(idMapper.apply(a), Integer.MAX_VALUE),
+                positions.getOrDefault(idMapper.apply(b), Integer.MAX_VALUE)));
+        return ordered;
+    }
+}
@@ -0,0 +1,55 @@
+package study.querydesl.repository.support;
+
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 페이징 없는 조회의 최대 건수 제한
+ * : limit(max + 1) 로 조회해서 한 건이라도 더 나오면 전부 메모리에 올리기 전에 예외를 던진다.
+ */
+@Component
+public class ResultLimit {
+
+    private final int maxResults;
+
+    public ResultLimit(@Value("${querydsl.max-results:10000}") int maxResults) {
+        Assert.isTrue(maxResults > 0, "Max results must be greater than zero!");
+        this.maxResults = maxResults;
+    }
+
+    public <T> List<T> fetch(JPAQuery<T> query) {
+        return check(query
+                .limit(maxResults + 1L)
+                .fetch());
+    }
+
+    public <T> List<T> fetch(QueryTemplate<T> template, Map<ParamExpression<?>, Object> params) {
+        return check(template.fetch(params, 0, maxResults + 1L));
+    }
+
+    /**
+     * 결과를 List 로 모으지 않고 바로 쓰는 조회용: max 번째 다음 행이 있는지만 한 건 조회해서 확인한다.
+     */
+    public void checkBeforeStream(JPAQuery<?> query) {
+        if (query.offset(maxResults).fetchFirst() != null) {
+            throw new ResultLimitExceededException(maxResults);
+        }
+    }
+
+    public <T> List<T> check(List<T> result) {
+        if (result.size() > maxResults) {
+            throw new ResultLimitExceededException(maxResults);
+        }
+        return result;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+}
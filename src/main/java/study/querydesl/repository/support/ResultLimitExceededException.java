@@ -0,0 +1,25 @@
+package study.querydesl.repository.support;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 조회 결과가 최대 건수(ResultLimit)를 넘었을 때
+ * : 요청 자체는 올바르지만 한 번에 줄 수 없는 크기이므로 422 로 응답하고, 페이징 API 나 스트리밍 API(/v1/members/stream)를 안내한다.
+ * (본문은 ResultLimitExceptionHandler 가 만든다)
+ */
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class ResultLimitExceededException extends RuntimeException {
+
+    private final int maxResults;
+
+    public ResultLimitExceededException(int maxResults) {
+        super("Result exceeds the maximum of " + maxResults + " rows. "
+                + "Request it page by page (page, size parameters) or use /v1/members/stream instead.");
+        this.maxResults = maxResults;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+}
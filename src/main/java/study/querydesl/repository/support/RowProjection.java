@@ -0,0 +1,44 @@
+package study.querydesl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Visitor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * row 배열에서 DTO 를 바로 만드는 프로젝션
+ * : @QueryProjection 으로 생성되는 Q타입(ConstructorExpression)은 row 마다 리플렉션으로 생성자를 호출하고
+ * 인자 배열을 변환한다. 하위 클래스는 newInstance 에서 생성자를 직접 호출한다.
+ * JPQL 직렬화, count 쿼리 변환 등은 getArgs 만 보므로 Q타입과 똑같이 쓸 수 있다.
+ */
+public abstract class RowProjection<T> extends FactoryExpressionBase<T> {
+
+    private final List<Expression<?>> args;
+
+    protected RowProjection(Class<? extends T> type, Expression<?>... args) {
+        super(type);
+        this.args = Collections.unmodifiableList(Arrays.asList(args));
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return args;
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+
+    // null 이면 Q타입과 같이 기본값 (left join 으로 비어있는 컬럼)
+    protected static int intValue(Object value) {
+        return value != null ? ((Number) value).intValue() : 0;
+    }
+
+    protected static long longValue(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+}
@@ -0,0 +1,34 @@
+package study.querydesl.repository.support;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 검색 조건 DTO 필드를 where 조건으로 변환하기 위한 설정 (PredicateCompiler 가 사용)
+ * <pre>
+ * &#64;SearchField(path = "team.name")
+ * private String teamName;
+ *
+ * &#64;SearchField(path = "age", op = SearchField.Op.GOE)
+ * private Integer ageGoe;
+ * </pre>
+ * 값이 null 이거나 빈 문자열/빈 컬렉션이면 조건에서 빠진다.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SearchField {
+
+    /**
+     * 조건을 걸 경로. 첫 번째 이름이 join alias(예: team)면 그 alias 기준, 아니면 루트 엔티티 기준이다.
+     * 비워두면 필드 이름을 사용한다.
+     */
+    String path() default "";
+
+    Op op() default Op.EQ;
+
+    enum Op {
+        EQ, GOE, LOE, LIKE, IN
+    }
+}
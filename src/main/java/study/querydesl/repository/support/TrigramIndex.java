@@ -0,0 +1,199 @@
+package study.querydesl.repository.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 부분 문자열(contains) 검색용 트라이그램 역색인
+ * - 문자열을 소문자로 바꾼 뒤 연속한 3글자마다 id 목록(정렬된 long[])을 둔다.
+ * - 검색어의 트라이그램 목록들을 짧은 것부터 교집합하고, 후보는 원문으로 contains 를 다시 확인한다.
+ * - 3글자보다 짧은 검색어는 트라이그램이 없으므로 전체 문자열을 훑는다.
+ * 대소문자를 구분하지 않는다. 읽기는 동시에, 쓰기는 하나씩 (ReadWriteLock)
+ */
+public class TrigramIndex {
+
+    /**
+     * 트라이그램으로 후보를 좁힐 수 있는 최소 검색어 길이 (더 짧으면 search 는 전체를 훑는다)
+     */
+    public static final int MIN_KEYWORD_LENGTH = 3;
+
+    private static final long[] EMPTY = new long[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Postings> postingsByTrigram = new HashMap<>();
+    private final Map<Long, String> textById = new HashMap<>();
+
+    public void put(long id, String text) {
+        lock.writeLock().lock();
+        try {
+            putLocked(id, text);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * afterId &lt; id &lt;= lastId 구간을 ids/texts 로 바꾼다. (구간 안에 있지만 ids 에 없는 id 는 지운다)
+     * ids 는 오름차순이어야 한다.
+     */
+    public void replaceRange(long afterId, long lastId, long[] ids, List<String> texts) {
+        lock.writeLock().lock();
+        try {
+            long[] stale = textById.keySet().stream()
+                    .mapToLong(Long::longValue)
+                    .filter(id -> id > afterId && id <= lastId && Arrays.binarySearch(ids, id) < 0)
+                    .toArray();
+            for (long id : stale) {
+                putLocked(id, null);
+            }
+            for (int i = 0; i < ids.length; i++) {
+                putLocked(ids[i], texts.get(i));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putLocked(long id, String text) {
+        String normalized = text != null ? text.toLowerCase(Locale.ROOT) : null;
+        String previous = textById.get(id);
+        if (previous != null && previous.equals(normalized)) {
+            return;
+        }
+        if (previous != null) {
+            trigrams(previous).forEach(trigram -> {
+                Postings postings = postingsByTrigram.get(trigram);
+                if (postings != null && postings.remove(id) && postings.size == 0) {
+                    postingsByTrigram.remove(trigram);
+                }
+            });
+        }
+        if (normalized == null) {
+            textById.remove(id);
+            return;
+        }
+        textById.put(id, normalized);
+        trigrams(normalized).forEach(trigram ->
+                postingsByTrigram.computeIfAbsent(trigram, key -> new Postings()).add(id));
+    }
+
+    public void remove(long id) {
+        put(id, null);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return textById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * keyword 를 포함하는 id (오름차순). limit 건을 넘으면 limit + 1 건까지만 반환한다.
+     */
+    public long[] search(String keyword, int limit) {
+        String normalized = keyword.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            long[] candidates;
+            if (normalized.length() < MIN_KEYWORD_LENGTH) {
+                candidates = textById.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+            } else {
+                candidates = intersect(normalized);
+            }
+
+            long[] result = new long[Math.min(candidates.length, limit + 1)];
+            int size = 0;
+            for (long id : candidates) {
+                if (textById.get(id).contains(normalized)) {
+                    result[size++] = id;
+                    if (size == result.length) {
+                        break;
+                    }
+                }
+            }
+            return size == result.length ? result : Arrays.copyOf(result, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] intersect(String normalized) {
+        List<Postings> lists = new ArrayList<>();
+        for (long trigram : trigrams(normalized)) {
+            Postings postings = postingsByTrigram.get(trigram);
+            if (postings == null) {
+                return EMPTY;
+            }
+            lists.add(postings);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        long[] result = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+        int size = result.length;
+        for (int i = 1; i < lists.size() && size > 0; i++) {
+            Postings other = lists.get(i);
+            int kept = 0;
+            int from = 0;
+            for (int j = 0; j < size; j++) {
+                // 작은 목록의 id 를 큰 목록에서 이진 탐색 (앞에서 찾은 위치 이후만)
+                int position = Arrays.binarySearch(other.ids, from, other.size, result[j]);
+                if (position >= 0) {
+                    result[kept++] = result[j];
+                    from = position + 1;
+                } else {
+                    from = -position - 1;
+                }
+            }
+            size = kept;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    // 3글자를 16비트씩 묶은 키
+    private static Set<Long> trigrams(String text) {
+        Set<Long> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            trigrams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return trigrams;
+    }
+
+    private static class Postings {
+        private long[] ids = new long[4];
+        private int size;
+
+        private void add(long id) {
+            int position = size > 0 && ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        private boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+    }
+}
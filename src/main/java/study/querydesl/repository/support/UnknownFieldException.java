@@ -0,0 +1,22 @@
+package study.querydesl.repository.support;
+
+import java.util.Collection;
+
+/**
+ * 선택할 수 없는 필드를 요청했을 때 (fields=)
+ * : IllegalArgumentException 이 아닌 이유는 @Repository 예외 변환을 거치면 데이터 접근 예외(500)가 되기 때문이다.
+ * (400 응답은 BadRequestExceptionHandler 가 만든다)
+ */
+public class UnknownFieldException extends RuntimeException {
+
+    private final String field;
+
+    public UnknownFieldException(String field, Collection<String> allowed) {
+        super("Unknown field: " + field + " (allowed: " + allowed + ")");
+        this.field = field;
+    }
+
+    public String getField() {
+        return field;
+    }
+}
@@ -0,0 +1,136 @@
+package study.querydesl.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import study.querydesl.dto.BulkIngestResult;
+import study.querydesl.dto.MemberIngestRequest;
+import study.querydesl.entity.Member;
+import study.querydesl.entity.MemberChangedEvent;
+import study.querydesl.entity.MemberChangedEvent.TeamDelta;
+import study.querydesl.entity.MemberEntityListener;
+import study.querydesl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 회원 대량 저장
+ * - batchSize 건마다 flush/clear (hibernate.jdbc.batch_size 로 JDBC 배치 insert)
+ * - chunkSize 건마다 커밋
+ * - 회원 한 건마다 변경 이벤트를 보내지 않고 청크마다 벌크 이벤트 한 번
+ *   (저장한 id 구간과 팀별 추가 합계를 담아서, 팀 통계는 더하기만 하고 인덱스는 그 구간만 읽는다)
+ */
+@Service
+public class MemberBulkIngestService {
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int chunkSize;
+
+    public MemberBulkIngestService(EntityManager em,
+                                   PlatformTransactionManager transactionManager,
+                                   ApplicationEventPublisher eventPublisher,
+                                   ObjectMapper objectMapper,
+                                   @Value("${member.ingest.batch-size:100}") int batchSize,
+                                   @Value("${member.ingest.chunk-size:10000}") int chunkSize) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 한 줄에 JSON 하나(NDJSON)씩 읽으면서 저장하므로 요청 전체를 메모리에 올리지 않는다.
+     */
+    public BulkIngestResult ingestNdjson(InputStream in) throws IOException {
+        try (MappingIterator<MemberIngestRequest> rows =
+                     objectMapper.readerFor(MemberIngestRequest.class).readValues(in)) {
+            return ingest(rows);
+        }
+    }
+
+    public BulkIngestResult ingest(Iterator<MemberIngestRequest> rows) {
+        long start = System.nanoTime();
+        long count = 0;
+        Map<String, Long> teamIds = new HashMap<>();
+
+        while (rows.hasNext()) {
+            Long ingested = transactionTemplate.execute(status ->
+                    MemberEntityListener.withoutEvents(() -> ingestChunk(rows, teamIds)));
+            count += ingested;
+        }
+        return new BulkIngestResult(count, System.nanoTime() - start);
+    }
+
+    private long ingestChunk(Iterator<MemberIngestRequest> rows, Map<String, Long> teamIds) {
+        long count = 0;
+        long minId = Long.MAX_VALUE;
+        long maxId = Long.MIN_VALUE;
+        Map<Long, TeamDelta> teamDeltas = new HashMap<>();
+        while (count < chunkSize && rows.hasNext()) {
+            MemberIngestRequest row = rows.next();
+
+            Member member = new Member(row.getUsername(), row.getAge());
+            Long teamId = teamIdOf(row.getTeamName(), teamIds);
+            if (teamId != null) {
+                // changeTeam 은 team.members 컬렉션을 건드리므로 대량 저장에서는 FK 만 설정
+                member.assignTeam(em.getReference(Team.class, teamId), row.getTeamName());
+                teamDeltas.computeIfAbsent(teamId, id -> new TeamDelta()).add(member.getAge());
+            }
+            em.persist(member);
+            minId = Math.min(minId, member.getId());
+            maxId = Math.max(maxId, member.getId());
+
+            if (++count % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+        if (count > 0) {
+            eventPublisher.publishEvent(MemberChangedEvent.bulkInserted(minId - 1, maxId, teamDeltas));
+        }
+        return count;
+    }
+
+    private Long teamIdOf(String teamName, Map<String, Long> teamIds) {
+        if (!StringUtils.hasText(teamName)) {
+            return null;
+        }
+        Long teamId = teamIds.get(teamName);
+        if (teamId != null) {
+            return teamId;
+        }
+
+        List<Long> found = em.createQuery("select t.id from Team t where t.name = :name order by t.id", Long.class)
+                .setParameter("name", teamName)
+                .setMaxResults(1)
+                .getResultList();
+        if (found.isEmpty()) {
+            Team team = new Team(teamName);
+            em.persist(team);
+            teamId = team.getId();
+        } else {
+            teamId = found.get(0);
+        }
+        teamIds.put(teamName, teamId);
+        return teamId;
+    }
+}
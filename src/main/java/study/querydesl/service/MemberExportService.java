@@ -0,0 +1,89 @@
+package study.querydesl.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydesl.dto.MemberSearchCondition;
+import study.querydesl.dto.MemberTeamDto;
+import study.querydesl.repository.MemberJpaRepository;
+import study.querydesl.web.MemberTeamJsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 회원 검색 결과를 NDJSON(한 줄에 JSON 하나)으로 내보내기
+ * : 결과를 List 로 모으지 않고 한 건씩 바로 출력 스트림에 쓰기 때문에 결과 크기와 상관없이 메모리 사용량이 일정하다.
+ * DTO 프로젝션이라 영속성 컨텍스트에 쌓이는 엔티티가 없으므로 중간에 비우지(clear) 않는다.
+ */
+@Service
+public class MemberExportService {
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final ObjectWriter writer;
+    private final ObjectMapper objectMapper;
+    private final MemberTeamJsonWriter jsonWriter;
+    private final int fetchSize;
+    private final int flushInterval;
+
+    public MemberExportService(MemberJpaRepository memberJpaRepository,
+                               ObjectMapper objectMapper,
+                               MemberTeamJsonWriter jsonWriter,
+                               @Value("${member.export.fetch-size:500}") int fetchSize,
+                               @Value("${member.export.flush-interval:1000}") int flushInterval) {
+        this.memberJpaRepository = memberJpaRepository;
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writerFor(MemberTeamDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.jsonWriter = jsonWriter;
+        this.fetchSize = fetchSize;
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * @return 내보낸 건수
+     */
+    @Transactional(readOnly = true)
+    public long exportNdjson(MemberSearchCondition condition, OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<MemberTeamDto> rows = memberJpaRepository.stream(condition, fetchSize);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            Iterator<MemberTeamDto> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                count++;
+
+                // flushInterval 건마다 버퍼를 내보낸다. (0 이하면 끝날 때만)
+                if (flushInterval > 0 && count % flushInterval == 0) {
+                    generator.flush();
+                }
+            }
+            generator.flush();
+        }
+        return count;
+    }
+
+    /**
+     * JSON 배열로 내보내기 (/v1/members 와 같은 모양)
+     * /v1/members 처럼 최대 건수(ResultLimit)를 넘으면 아무것도 쓰지 않고 ResultLimitExceededException 을 던진다.
+     *
+     * @return 내보낸 건수
+     */
+    @Transactional(readOnly = true)
+    public long exportJson(MemberSearchCondition condition, OutputStream out) throws IOException {
+        memberJpaRepository.checkResultLimit(condition);
+        try (Stream<MemberTeamDto> rows = memberJpaRepository.stream(condition, fetchSize)) {
+            return jsonWriter.writeList(rows.iterator(), out);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package study.querydesl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydesl.entity.MemberChangedEvent;
+import study.querydesl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
+
+import static study.querydesl.entity.QMember.member;
+
+@Service
+public class TeamService {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public TeamService(EntityManager em, ApplicationEventPublisher eventPublisher) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * 팀 이름 변경
+     * : 회원에 비정규화된 team_name 도 벌크로 같이 바꾼다.
+     */
+    @Transactional
+    public void rename(Long teamId, String name) {
+        Team team = em.find(Team.class, teamId);
+        if (team == null) {
+            throw new EntityNotFoundException("Team not found: " + teamId);
+        }
+        team.rename(name);
+
+        queryFactory
+                .update(member)
+                .set(member.teamName, name)
+                .where(member.team.id.eq(teamId))
+                .execute();
+
+        // 벌크 연산이므로 영속성 컨텍스트를 비우고 검색 캐시 무효화 이벤트를 발행
+        em.flush();
+        em.clear();
+        eventPublisher.publishEvent(MemberChangedEvent.teamRenamed(teamId));
+    }
+}
@@ -0,0 +1,135 @@
+package study.querydesl.service;
+
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydesl.entity.MemberChangedEvent;
+import study.querydesl.entity.MemberChangedEvent.Change;
+import study.querydesl.entity.MemberChangedEvent.TeamDelta;
+import study.querydesl.repository.TeamStatsRepository;
+
+import javax.persistence.EntityManager;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 회원 변경 이벤트를 트랜잭션 단위로 모아서 커밋 직전에 TeamStats 에 반영
+ * - 추가/이동해 들어온 회원: 회원 수, 나이 합, 최소/최대를 더한다.
+ * - 삭제/이동해 나간 회원: 최소/최대를 증분으로 알 수 없으므로 해당 팀만 다시 집계한다.
+ * - 벌크 연산: 나이/팀/추가/삭제가 없으면(회원명만 바꾼 경우 등) 할 일이 없다.
+ *   팀별 추가 합계가 있으면(대량 저장) 더하고, 영향받은 팀을 알면 그 팀만, 모르면 전체를 다시 만든다.
+ * 이벤트는 flush 중(엔티티 콜백)에 오므로 여기서는 모으기만 하고 쿼리는 커밋 직전에 실행한다.
+ * (하이버네이트가 커밋하면서 flush 를 마친 다음, 같은 세션의 트랜잭션 완료 전 처리로)
+ */
+@Component
+public class TeamStatsUpdater {
+
+    private final EntityManager em;
+    private final TeamStatsRepository teamStatsRepository;
+
+    public TeamStatsUpdater(EntityManager em, TeamStatsRepository teamStatsRepository) {
+        this.em = em;
+        this.teamStatsRepository = teamStatsRepository;
+    }
+
+    @EventListener
+    public void onMemberChanged(MemberChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Pending pending = pending();
+
+        switch (event.getType()) {
+            case SAVED:
+                pending.add(event.getTeamId(), event.getAge());
+                break;
+            case UPDATED:
+                if (Objects.equals(event.getPreviousTeamId(), event.getTeamId())
+                        && Objects.equals(event.getPreviousAge(), event.getAge())) {
+                    break;
+                }
+                pending.recompute(event.getPreviousTeamId());
+                pending.add(event.getTeamId(), event.getAge());
+                break;
+            case REMOVED:
+                pending.recompute(event.getPreviousTeamId());
+                break;
+            case BULK:
+                if (!event.hasAnyChange(Change.AGE, Change.TEAM, Change.INSERT, Change.DELETE)) {
+                    break;
+                }
+                if (event.getTeamDeltas() != null) {
+                    event.getTeamDeltas().forEach(pending::merge);
+                } else if (event.getBulkTeamIds() == null) {
+                    pending.rebuild = true;
+                } else {
+                    event.getBulkTeamIds().forEach(pending::recompute);
+                }
+                break;
+        }
+    }
+
+    private Pending pending() {
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Pending created = new Pending();
+            TransactionSynchronizationManager.bindResource(this, created);
+            // 커밋할 때 하는 flush 에서 처음 이벤트가 오면 스프링의 beforeCommit 은 이미 지나간 뒤다.
+            // 하이버네이트의 트랜잭션 완료 전 처리는 그 flush 다음에 실행되므로 여기에 등록한다.
+            em.unwrap(SessionImplementor.class).getActionQueue()
+                    .registerProcess((BeforeTransactionCompletionProcess) session -> apply(created));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TeamStatsUpdater.this);
+                }
+            });
+            pending = created;
+        }
+        return pending;
+    }
+
+    private void apply(Pending pending) {
+        // 커밋 flush 가 끝난 뒤라서 회원 변경 이벤트는 모두 받았다. (통계 변경은 아래 쿼리/flush 로 반영)
+
+        if (pending.rebuild) {
+            teamStatsRepository.rebuild();
+            return;
+        }
+        teamStatsRepository.recompute(pending.recompute);
+        pending.deltas.forEach((teamId, delta) -> {
+            if (!pending.recompute.contains(teamId)) {
+                teamStatsRepository.applyDelta(teamId, delta.getCount(), delta.getAgeSum(),
+                        delta.getAgeMin(), delta.getAgeMax());
+            }
+        });
+    }
+
+    private static class Pending {
+        private final Map<Long, TeamDelta> deltas = new HashMap<>();
+        private final Set<Long> recompute = new HashSet<>();
+        private boolean rebuild;
+
+        private void add(Long teamId, Integer age) {
+            if (teamId != null && age != null) {
+                deltas.computeIfAbsent(teamId, id -> new TeamDelta()).add(age);
+            }
+        }
+
+        private void merge(Long teamId, TeamDelta delta) {
+            deltas.computeIfAbsent(teamId, id -> new TeamDelta()).merge(delta);
+        }
+
+        private void recompute(Long teamId) {
+            if (teamId != null) {
+                recompute.add(teamId);
+            }
+        }
+    }
+}
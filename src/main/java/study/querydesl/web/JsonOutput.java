@@ -0,0 +1,198 @@
+package study.querydesl.web;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 스레드별로 재사용하는 버퍼에 JSON 을 바이트로 바로 쓰는 출력
+ * : 버퍼가 차면 출력 스트림으로 내보내므로 응답 전체를 메모리에 만들지 않는다.
+ * 문자열 이스케이프는 Jackson 기본 설정과 같다. (", \, 제어문자, surrogate 만 이스케이프, 나머지는 UTF-8 그대로)
+ */
+public class JsonOutput implements AutoCloseable {
+
+    private static final ThreadLocal<byte[]> POOL = new ThreadLocal<>();
+    private static final int MIN_BUFFER_SIZE = 64; // 숫자 하나, 이스케이프 하나는 항상 들어가야 한다.
+    private static final byte[] NULL = bytes("null");
+    private static final byte[] TRUE = bytes("true");
+    private static final byte[] FALSE = bytes("false");
+    private static final byte[] HEX = bytes("0123456789ABCDEF");
+
+    private final OutputStream out;
+    private byte[] buffer;
+    private int position;
+
+    private JsonOutput(OutputStream out, byte[] buffer) {
+        this.out = out;
+        this.buffer = buffer;
+    }
+
+    /**
+     * 같은 스레드에서 먼저 연 출력이 아직 닫히지 않았으면 새 버퍼를 쓴다.
+     */
+    public static JsonOutput open(OutputStream out, int bufferSize) {
+        bufferSize = Math.max(bufferSize, MIN_BUFFER_SIZE);
+        byte[] pooled = POOL.get();
+        POOL.remove();
+        return new JsonOutput(out, pooled != null && pooled.length >= bufferSize ? pooled : new byte[bufferSize]);
+    }
+
+    public static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public JsonOutput raw(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.length - position) {
+            flushBuffer();
+            if (bytes.length > buffer.length) {
+                out.write(bytes);
+                return this;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+        return this;
+    }
+
+    // ASCII 한 글자 ({, }, [, ], ',', ':')
+    public JsonOutput raw(char c) throws IOException {
+        ensure(1);
+        buffer[position++] = (byte) c;
+        return this;
+    }
+
+    public JsonOutput number(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            return raw(bytes(Long.toString(value)));
+        }
+        ensure(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int start = position;
+        do {
+            buffer[position++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        // 뒤집기
+        for (int i = start, j = position - 1; i < j; i++, j--) {
+            byte tmp = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = tmp;
+        }
+        return this;
+    }
+
+    public JsonOutput number(Long value) throws IOException {
+        return value != null ? number(value.longValue()) : raw(NULL);
+    }
+
+    public JsonOutput bool(boolean value) throws IOException {
+        return raw(value ? TRUE : FALSE);
+    }
+
+    public JsonOutput string(String value) throws IOException {
+        if (value == null) {
+            return raw(NULL);
+        }
+        ensure(1);
+        buffer[position++] = '"';
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            ensure(6); // 가장 긴 경우: 유니코드 이스케이프 6바이트
+            if (c < 0x80) {
+                if (c >= 0x20 && c != '"' && c != '\\') {
+                    buffer[position++] = (byte) c;
+                } else {
+                    escape(c);
+                }
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Jackson(UTF8JsonGenerator)과 같이 BMP 밖의 문자는 surrogate 하나씩 이스케이프
+                unicodeEscape(c);
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        ensure(1);
+        buffer[position++] = '"';
+        return this;
+    }
+
+    private void escape(char c) {
+        switch (c) {
+            case '"':
+            case '\\':
+                shortEscape((byte) c);
+                break;
+            case '\n':
+                shortEscape((byte) 'n');
+                break;
+            case '\r':
+                shortEscape((byte) 'r');
+                break;
+            case '\t':
+                shortEscape((byte) 't');
+                break;
+            case '\b':
+                shortEscape((byte) 'b');
+                break;
+            case '\f':
+                shortEscape((byte) 'f');
+                break;
+            default:
+                unicodeEscape(c);
+        }
+    }
+
+    private void shortEscape(byte escaped) {
+        buffer[position++] = '\\';
+        buffer[position++] = escaped;
+    }
+
+    private void unicodeEscape(char c) {
+        buffer[position++] = '\\';
+        buffer[position++] = 'u';
+        buffer[position++] = HEX[(c >> 12) & 0xF];
+        buffer[position++] = HEX[(c >> 8) & 0xF];
+        buffer[position++] = HEX[(c >> 4) & 0xF];
+        buffer[position++] = HEX[c & 0xF];
+    }
+
+    private void ensure(int size) throws IOException {
+        if (buffer.length - position < size) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * 남은 내용을 내보내고 버퍼를 반납한다. (출력 스트림은 닫지 않는다)
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            POOL.set(buffer);
+            buffer = null;
+        }
+    }
+}
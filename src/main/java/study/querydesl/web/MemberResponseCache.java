@@ -0,0 +1,176 @@
+package study.querydesl.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import study.querydesl.dto.MemberTeamDto;
+import study.querydesl.entity.MemberChangedEvent;
+import study.querydesl.entity.TeamChangedEvent;
+import study.querydesl.repository.MemberWriteTracker;
+import study.querydesl.repository.support.CacheStats;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+/**
+ * 회원 검색 응답(JSON 바이트) 캐시
+ * : 키는 (API 버전, 정규화된 검색 조건, pageable) 이고, 적중하면 JPA 조회와 직렬화 없이 저장된 바이트를 그대로 쓴다.
+ * ETag 는 본문의 CRC32C 라서 무효화 후 다시 만든 응답도 내용이 같으면 ETag 가 같다. (If-None-Match 가 맞으면 304)
+ * 회원/팀 변경 시점에 한 번, 트랜잭션이 끝나면(커밋/롤백) 다시 한 번 전부 무효화한다.
+ * 본문은 member.json-writer.enabled 면 MemberTeamJsonWriter 로, 아니면 Jackson 으로 만든다.
+ * <p>
+ * 캐시는 JSON 만 저장하므로, 캐시가 꺼져 있거나 Accept 가 JSON 을 받지 않으면(canServe=false)
+ * 컨트롤러가 Page 를 그대로 반환해서 메시지 컨버터가 처리하게 한다.
+ */
+@Component
+public class MemberResponseCache {
+
+    private final OffHeapSlabCache cache;
+    private final MemberTeamJsonWriter writer;
+    private final ObjectMapper objectMapper;
+    private final MemberWriteTracker writeTracker;
+    private final boolean enabled;
+    private final boolean jsonWriterEnabled;
+
+    public MemberResponseCache(MemberTeamJsonWriter writer, ObjectMapper objectMapper, MemberWriteTracker writeTracker,
+                               @Value("${member.response-cache.enabled:true}") boolean enabled,
+                               @Value("${member.json-writer.enabled:true}") boolean jsonWriterEnabled,
+                               @Value("${member.response-cache.slab-size:1MB}") DataSize slabSize,
+                               @Value("${member.response-cache.slab-count:64}") int slabCount) {
+        this.cache = new OffHeapSlabCache(Math.toIntExact(slabSize.toBytes()), slabCount);
+        this.writer = writer;
+        this.objectMapper = objectMapper;
+        this.writeTracker = writeTracker;
+        this.enabled = enabled;
+        this.jsonWriterEnabled = jsonWriterEnabled;
+    }
+
+    /**
+     * 이 요청을 캐시로 처리할 수 있으면 true (캐시가 켜져 있고, Accept 가 JSON 을 받을 때)
+     */
+    public boolean canServe(HttpServletRequest request) {
+        return enabled && acceptsJson(request.getHeader(HttpHeaders.ACCEPT));
+    }
+
+    public void write(String version, Object condition, Object pageable,
+                      Supplier<? extends Slice<MemberTeamDto>> loader,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Object key = Arrays.asList(version, condition, pageable);
+        // 변경한 트랜잭션 안에서는 커밋 전 데이터이므로 캐시를 읽지도 채우지도 않는다.
+        boolean cacheable = enabled && !writeTracker.hasPendingWrites();
+        if (cacheable) {
+            try (OffHeapSlabCache.Hit hit = cache.get(key)) {
+                if (hit != null) {
+                    write(hit.getBody(), hit.getEtag(), request, response);
+                    return;
+                }
+            }
+        }
+
+        long generation = cache.generation();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serialize(loader.get(), out);
+        byte[] body = out.toByteArray();
+        String etag = etag(body);
+        if (cacheable) {
+            cache.put(key, body, etag, generation);
+        }
+        write(ByteBuffer.wrap(body), etag, request, response);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    // 변경 시점: 조회 도중 변경되었으면 그 응답을 저장하지 않도록 세대를 올린다.
+    @EventListener({MemberChangedEvent.class, TeamChangedEvent.class})
+    public void onChanged() {
+        cache.invalidateAll();
+    }
+
+    // 완료 시점: 그 사이 다른 요청이 변경 전 데이터로 채운 응답을 지운다. (롤백이어도 지운다)
+    @TransactionalEventListener(classes = {MemberChangedEvent.class, TeamChangedEvent.class},
+            phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onCompleted() {
+        cache.invalidateAll();
+    }
+
+    private void serialize(Slice<MemberTeamDto> slice, ByteArrayOutputStream out) throws IOException {
+        if (jsonWriterEnabled) {
+            writer.writeSlice(slice, out);
+        } else {
+            objectMapper.writeValue(out, slice);
+        }
+    }
+
+    // Accept 가 없으면 무엇이든 받는다.
+    private static boolean acceptsJson(String accept) {
+        if (!StringUtils.hasText(accept)) {
+            return true;
+        }
+        try {
+            List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+            return mediaTypes.stream().anyMatch(mediaType -> mediaType.isCompatibleWith(MediaType.APPLICATION_JSON));
+        } catch (InvalidMediaTypeException e) {
+            // 잘못된 Accept 는 스프링 MVC 가 처리하게 둔다.
+            return false;
+        }
+    }
+
+    private static void write(ByteBuffer body, String etag, HttpServletRequest request,
+                              HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.remaining());
+        // 서블릿 API 에 ByteBuffer 쓰기가 없어서 채널로 쓴다.
+        WritableByteChannel channel = Channels.newChannel(response.getOutputStream());
+        while (body.hasRemaining()) {
+            channel.write(body);
+        }
+    }
+
+    // If-None-Match: "a", "b" 또는 * (약한 비교이므로 W/ 는 무시)
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String etag(byte[] body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        return "\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(body.length) + "\"";
+    }
+}
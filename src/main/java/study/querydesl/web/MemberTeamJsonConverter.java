@@ -0,0 +1,86 @@
+package study.querydesl.web;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import study.querydesl.dto.MemberTeamDto;
+import study.querydesl.repository.support.EstimatedPage;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 컨트롤러가 반환하는 Page/Slice/List&lt;MemberTeamDto&gt; 를 MemberTeamJsonWriter 로 쓴다.
+ * : HttpMessageConverter 빈은 스프링 부트가 Jackson 컨버터보다 앞에 등록하므로 다른 타입은 그대로 Jackson 이 처리한다.
+ * member.json-writer.enabled=false 면 등록하지 않는다.
+ */
+@Component
+@ConditionalOnProperty(name = "member.json-writer.enabled", havingValue = "true", matchIfMissing = true)
+public class MemberTeamJsonConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    private final MemberTeamJsonWriter writer;
+
+    public MemberTeamJsonConverter(MemberTeamJsonWriter writer) {
+        super(MediaType.APPLICATION_JSON);
+        setDefaultCharset(StandardCharsets.UTF_8);
+        this.writer = writer;
+    }
+
+    // 제네릭 타입을 알 수 없으면 쓰지 않는다.
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return writable(type, clazz) && canWrite(mediaType);
+    }
+
+    // 직렬화 결과가 정해진 구현 클래스만 (다른 Page 구현은 속성이 다를 수 있음)
+    private static boolean writable(Type type, Class<?> clazz) {
+        ResolvableType resolvable = ResolvableType.forType(type != null ? type : clazz);
+        if (clazz == PageImpl.class || clazz == EstimatedPage.class || clazz == SliceImpl.class) {
+            return resolvable.as(Slice.class).resolveGeneric(0) == MemberTeamDto.class;
+        }
+        if (List.class.isAssignableFrom(clazz)) {
+            return resolvable.as(List.class).resolveGeneric(0) == MemberTeamDto.class;
+        }
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (value instanceof Slice) {
+            writer.writeSlice((Slice<MemberTeamDto>) value, outputMessage.getBody());
+        } else {
+            writer.writeList(((List<MemberTeamDto>) value).iterator(), outputMessage.getBody());
+        }
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Read is not supported", inputMessage);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Read is not supported", inputMessage);
+    }
+}
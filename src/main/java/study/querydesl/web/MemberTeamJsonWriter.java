@@ -0,0 +1,142 @@
+package study.querydesl.web;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import study.querydesl.dto.MemberTeamDto;
+import study.querydesl.repository.support.EstimatedPage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+import static study.querydesl.web.JsonOutput.bytes;
+
+/**
+ * MemberTeamDto 목록/페이지 전용 JSON 출력
+ * : Jackson 이 매번 리플렉션으로 DTO 와 Page, Pageable 을 훑는 대신 미리 정해 둔 필드 순서대로 바이트를 바로 쓴다.
+ * 출력 모양은 Jackson 으로 직렬화한 PageImpl, SliceImpl, EstimatedPage, List 와 같다.
+ */
+@Component
+public class MemberTeamJsonWriter {
+
+    private static final byte[] MEMBER_ID = bytes("{\"memberId\":");
+    private static final byte[] USERNAME = bytes(",\"username\":");
+    private static final byte[] AGE = bytes(",\"age\":");
+    private static final byte[] TEAM_ID = bytes(",\"teamId\":");
+    private static final byte[] TEAM_NAME = bytes(",\"teamName\":");
+
+    private static final byte[] CONTENT = bytes("{\"content\":");
+    private static final byte[] PAGEABLE = bytes(",\"pageable\":");
+    private static final byte[] UNPAGED = bytes("\"INSTANCE\"");
+    private static final byte[] PAGEABLE_SORT = bytes("{\"sort\":");
+    private static final byte[] OFFSET = bytes(",\"offset\":");
+    private static final byte[] PAGE_NUMBER = bytes(",\"pageNumber\":");
+    private static final byte[] PAGE_SIZE = bytes(",\"pageSize\":");
+    private static final byte[] PAGED = bytes(",\"paged\":true,\"unpaged\":false}");
+    private static final byte[] LAST = bytes(",\"last\":");
+    private static final byte[] TOTAL_PAGES = bytes(",\"totalPages\":");
+    private static final byte[] TOTAL_ELEMENTS = bytes(",\"totalElements\":");
+    private static final byte[] SIZE = bytes(",\"size\":");
+    private static final byte[] NUMBER = bytes(",\"number\":");
+    private static final byte[] SORT = bytes(",\"sort\":");
+    private static final byte[] FIRST = bytes(",\"first\":");
+    private static final byte[] NUMBER_OF_ELEMENTS = bytes(",\"numberOfElements\":");
+    private static final byte[] EMPTY = bytes(",\"empty\":");
+    private static final byte[] ESTIMATED = bytes(",\"estimated\":");
+    private static final byte[] SORT_EMPTY = bytes("{\"empty\":true,\"sorted\":false,\"unsorted\":true}");
+    private static final byte[] SORT_SORTED = bytes("{\"empty\":false,\"sorted\":true,\"unsorted\":false}");
+
+    private final int bufferSize;
+
+    public MemberTeamJsonWriter(@Value("${member.json-writer.buffer-size:8192}") int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * 행을 하나씩 꺼내면서 JSON 배열로 쓴다. (List 로 모을 필요 없음)
+     *
+     * @return 쓴 건수
+     */
+    public long writeList(Iterator<MemberTeamDto> rows, OutputStream out) throws IOException {
+        try (JsonOutput json = JsonOutput.open(out, bufferSize)) {
+            return array(json, rows);
+        }
+    }
+
+    public void writeSlice(Slice<MemberTeamDto> slice, OutputStream out) throws IOException {
+        try (JsonOutput json = JsonOutput.open(out, bufferSize)) {
+            json.raw(CONTENT);
+            array(json, slice.getContent().iterator());
+            json.raw(PAGEABLE);
+            pageable(json, slice.getPageable());
+
+            if (slice instanceof Page) {
+                Page<MemberTeamDto> page = (Page<MemberTeamDto>) slice;
+                json.raw(LAST).bool(page.isLast());
+                json.raw(TOTAL_PAGES).number(page.getTotalPages());
+                json.raw(TOTAL_ELEMENTS).number(page.getTotalElements());
+            } else {
+                json.raw(FIRST).bool(slice.isFirst());
+                json.raw(LAST).bool(slice.isLast());
+            }
+            json.raw(SIZE).number(slice.getSize());
+            json.raw(NUMBER).number(slice.getNumber());
+            json.raw(SORT);
+            sort(json, slice.getSort());
+            if (slice instanceof Page) {
+                json.raw(FIRST).bool(slice.isFirst());
+            }
+            json.raw(NUMBER_OF_ELEMENTS).number(slice.getNumberOfElements());
+            json.raw(EMPTY).bool(slice.isEmpty());
+            if (slice instanceof EstimatedPage) {
+                json.raw(ESTIMATED).bool(((EstimatedPage<?>) slice).isEstimated());
+            }
+            json.raw('}');
+        }
+    }
+
+    private static long array(JsonOutput json, Iterator<MemberTeamDto> rows) throws IOException {
+        long count = 0;
+        json.raw('[');
+        while (rows.hasNext()) {
+            if (count++ > 0) {
+                json.raw(',');
+            }
+            row(json, rows.next());
+        }
+        json.raw(']');
+        return count;
+    }
+
+    private static void row(JsonOutput json, MemberTeamDto row) throws IOException {
+        json.raw(MEMBER_ID).number(row.getMemberId());
+        json.raw(USERNAME).string(row.getUsername());
+        json.raw(AGE).number(row.getAge());
+        json.raw(TEAM_ID).number(row.getTeamId());
+        json.raw(TEAM_NAME).string(row.getTeamName());
+        json.raw('}');
+    }
+
+    // Unpaged 는 enum 이라 Jackson 이 "INSTANCE" 로 쓴다.
+    private static void pageable(JsonOutput json, Pageable pageable) throws IOException {
+        if (pageable.isUnpaged()) {
+            json.raw(UNPAGED);
+            return;
+        }
+        json.raw(PAGEABLE_SORT);
+        sort(json, pageable.getSort());
+        json.raw(OFFSET).number(pageable.getOffset());
+        json.raw(PAGE_NUMBER).number(pageable.getPageNumber());
+        json.raw(PAGE_SIZE).number(pageable.getPageSize());
+        json.raw(PAGED);
+    }
+
+    // Sort 는 정렬 조건 없이 empty/sorted/unsorted 만 나온다.
+    private static void sort(JsonOutput json, Sort sort) throws IOException {
+        json.raw(sort.isSorted() ? SORT_SORTED : SORT_EMPTY);
+    }
+}
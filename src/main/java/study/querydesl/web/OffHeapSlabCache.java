@@ -0,0 +1,184 @@
+package study.querydesl.web;
+
+import org.springframework.util.Assert;
+import study.querydesl.repository.support.CacheStats;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 직렬화된 응답 바이트를 힙 밖(direct ByteBuffer) 슬랩에 저장하는 캐시
+ * : 슬랩을 링으로 돌면서 뒤에 이어 붙이고, 자리가 없으면 가장 오래된 슬랩을 통째로 비운다. (슬랩 단위 FIFO)
+ * 그래서 메모리는 slabSize * slabCount 를 넘지 않고 단편화도 없다.
+ * 조회 결과(Hit)는 슬랩을 복사하지 않은 읽기 전용 뷰이므로 다 쓰면 close 해야 한다.
+ * 읽는 중인 슬랩을 재사용해야 하면 덮어쓰지 않고 새 버퍼로 바꾼다.
+ * 조회 도중 invalidateAll() 이 호출되면 그 결과는 저장하지 않는다. (LruQueryResultCache 와 같음)
+ */
+public class OffHeapSlabCache {
+
+    private final int slabSize;
+    private final Slab[] slabs;
+    private final Map<Object, Entry> index = new HashMap<>();
+    private int current;
+    private long generation;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public OffHeapSlabCache(int slabSize, int slabCount) {
+        Assert.isTrue(slabSize > 0, "Slab size must be greater than zero!");
+        Assert.isTrue(slabCount > 0, "Slab count must be greater than zero!");
+        this.slabSize = slabSize;
+        this.slabs = new Slab[slabCount];
+        for (int i = 0; i < slabCount; i++) {
+            slabs[i] = new Slab();
+        }
+    }
+
+    public static class Hit implements AutoCloseable {
+        private final ByteBuffer body;
+        private final String etag;
+        private final Segment segment;
+        private boolean closed;
+
+        private Hit(ByteBuffer body, String etag, Segment segment) {
+            this.body = body;
+            this.etag = etag;
+            this.segment = segment;
+        }
+
+        public ByteBuffer getBody() {
+            return body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                segment.pins.decrementAndGet();
+            }
+        }
+    }
+
+    // 슬랩의 실제 메모리. 읽는 중(pins > 0)이면 재사용하지 않는다.
+    private static class Segment {
+        private final ByteBuffer buffer;
+        private final AtomicInteger pins = new AtomicInteger();
+
+        private Segment(int size) {
+            this.buffer = ByteBuffer.allocateDirect(size);
+        }
+    }
+
+    private static class Slab {
+        private Segment segment;
+        private int used;
+        private final List<Entry> entries = new ArrayList<>();
+    }
+
+    private static class Entry {
+        private final Object key;
+        private final Segment segment;
+        private final int offset;
+        private final int length;
+        private final String etag;
+
+        private Entry(Object key, Segment segment, int offset, int length, String etag) {
+            this.key = key;
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.etag = etag;
+        }
+    }
+
+    /**
+     * 값을 만들기 전에 읽어서 put 에 넘긴다.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized Hit get(Object key) {
+        Entry entry = index.get(key);
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        entry.segment.pins.incrementAndGet();
+        ByteBuffer body = entry.segment.buffer.asReadOnlyBuffer();
+        body.limit(entry.offset + entry.length).position(entry.offset);
+        return new Hit(body.slice(), entry.etag, entry.segment);
+    }
+
+    /**
+     * @return 저장했으면 true (슬랩보다 크거나 그 사이 무효화됐으면 false)
+     */
+    public synchronized boolean put(Object key, byte[] body, String etag, long startGeneration) {
+        if (startGeneration != generation || body.length > slabSize) {
+            return false;
+        }
+
+        Slab slab = slabs[current];
+        if (slab.segment != null && slab.used + body.length > slabSize) {
+            current = (current + 1) % slabs.length;
+            slab = slabs[current];
+            evict(slab);
+        }
+        if (slab.segment == null) {
+            slab.segment = new Segment(slabSize);
+        }
+
+        ByteBuffer target = slab.segment.buffer.duplicate();
+        target.position(slab.used);
+        target.put(body);
+
+        Entry entry = new Entry(key, slab.segment, slab.used, body.length, etag);
+        slab.used += body.length;
+        slab.entries.add(entry);
+        index.put(key, entry);
+        return true;
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        index.clear();
+        for (Slab slab : slabs) {
+            reset(slab);
+        }
+        current = 0;
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(hitCount.get(), missCount.get(), evictionCount.get(), index.size());
+    }
+
+    private void evict(Slab slab) {
+        for (Entry entry : slab.entries) {
+            // 같은 키가 다른 슬랩에 다시 저장됐으면 그대로 둔다.
+            if (index.remove(entry.key, entry)) {
+                evictionCount.incrementAndGet();
+            }
+        }
+        reset(slab);
+    }
+
+    private void reset(Slab slab) {
+        slab.entries.clear();
+        slab.used = 0;
+        if (slab.segment != null && slab.segment.pins.get() > 0) {
+            slab.segment = null; // 읽는 쪽이 끝나면 GC 가 정리
+        }
+    }
+}
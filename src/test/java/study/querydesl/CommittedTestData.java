@@ -0,0 +1,29 @@
+package study.querydesl;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydesl.entity.MemberChangedEvent;
+import study.querydesl.entity.MemberChangedEvent.Change;
+
+import javax.persistence.EntityManager;
+import java.util.EnumSet;
+
+/**
+ * 커밋하는 테스트(@Transactional 롤백을 쓰지 않는 테스트)의 뒷정리
+ * : 회원/팀/팀 통계를 전부 지우고, 벌크 삭제이므로 캐시/인덱스가 비워지도록 벌크 이벤트를 발행한다.
+ * 이벤트의 id 구간을 전체로 주면 메모리 인덱스가 백그라운드가 아니라 커밋 직후에 바로 다시 읽는다.
+ */
+public class CommittedTestData {
+
+    public static void deleteAll(PlatformTransactionManager transactionManager, EntityManager em,
+                                 ApplicationEventPublisher eventPublisher) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from TeamStats").executeUpdate();
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+            eventPublisher.publishEvent(MemberChangedEvent.bulk(
+                    EnumSet.allOf(Change.class), Long.MIN_VALUE, Long.MAX_VALUE, null));
+        });
+    }
+}
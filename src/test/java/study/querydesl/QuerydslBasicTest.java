@@ -19,6 +19,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydesl.dto.MemberDto;
+import study.querydesl.dto.MemberDtoProjection;
 import study.querydesl.dto.QMemberDto;
 import study.querydesl.dto.UserDto;
 import study.querydesl.entity.Member;
@@ -735,6 +736,28 @@ public class QuerydslBasicTest {
         }
     }
 
+    /**
+     * 프로젝션 결과 반환 - 리플렉션 없이 생성자를 직접 호출 (RowProjection)
+     */
+    @Test
+    public void findDtoByRowProjection() {
+        JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+
+        List<MemberDto> result = queryFactory
+                .select(new MemberDtoProjection(member.username, member.age))
+                .from(member)
+                .orderBy(member.username.asc())
+                .fetch();
+
+        List<MemberDto> expected = queryFactory
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .orderBy(member.username.asc())
+                .fetch();
+
+        assertThat(result).isEqualTo(expected);
+    }
+
     /**
      * 동적 쿼리 - BooleanBuilder 사용
      */
@@ -0,0 +1,27 @@
+package study.querydesl.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalStorageAccessTest {
+
+    @Test
+    public void lruEvictionTest() {
+        LocalStorageAccess storage = new LocalStorageAccess(2);
+        storage.putIntoCache("a", "A", null);
+        storage.putIntoCache("b", "B", null);
+        storage.getFromCache("a", null); // a 를 최근에 사용
+
+        // 가득 차면 리전을 비우지 않고 가장 오래 쓰지 않은 b 만 내보낸다.
+        storage.putIntoCache("c", "C", null);
+        assertThat(storage.contains("a")).isTrue();
+        assertThat(storage.contains("b")).isFalse();
+        assertThat(storage.contains("c")).isTrue();
+
+        // 있는 키를 덮어쓰면 아무것도 내보내지 않는다.
+        storage.putIntoCache("a", "A2", null);
+        assertThat(storage.getFromCache("a", null)).isEqualTo("A2");
+        assertThat(storage.contains("c")).isTrue();
+    }
+}
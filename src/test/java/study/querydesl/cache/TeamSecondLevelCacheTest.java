@@ -0,0 +1,92 @@
+package study.querydesl.cache;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydesl.CommittedTestData;
+import study.querydesl.entity.Member;
+import study.querydesl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 2차 캐시는 커밋된 데이터만 담으므로 롤백 테스트 대신 커밋하고 뒷정리한다.
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class TeamSecondLevelCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    public void before() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 6; i++) {
+                em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        CommittedTestData.deleteAll(transactionManager, em, eventPublisher);
+    }
+
+    @Test
+    public void teamNPlusOneTest() {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        em.getEntityManagerFactory().getCache().evictAll();
+
+        // 캐시가 비어 있으면 회원 조회 1번 + 팀마다 1번 (N+1)
+        statistics.clear();
+        List<String> first = teamNames();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1 + 2);
+        assertThat(statistics.getSecondLevelCacheMissCount()).isEqualTo(2);
+        assertThat(statistics.getSecondLevelCachePutCount()).isEqualTo(2);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isZero();
+
+        // 다음 트랜잭션부터 팀 프록시 초기화는 2차 캐시에서: 회원 조회 1번만
+        statistics.clear();
+        List<String> second = teamNames();
+        assertThat(second).isEqualTo(first);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(2);
+        assertThat(statistics.getSecondLevelCacheMissCount()).isZero();
+    }
+
+    private List<String> teamNames() {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            List<Member> members = em.createQuery("select m from Member m order by m.id", Member.class)
+                    .getResultList();
+            List<String> names = new ArrayList<>();
+            for (Member member : members) {
+                names.add(member.getTeam().getName()); // 지연 로딩 프록시 초기화
+            }
+            return names;
+        });
+    }
+}
@@ -0,0 +1,115 @@
+package study.querydesl.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydesl.entity.Member;
+import study.querydesl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Transactional
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    Long teamAId;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        teamAId = teamA.getId();
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("user3", 30));
+    }
+
+    @Test
+    public void searchFieldsTest() throws Exception {
+        mockMvc.perform(get("/v1/members")
+                        .param("fields", "username,teamName")
+                        .param("usernameContains", "MEMBER"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].teamName").value("teamA"))
+                .andExpect(jsonPath("$[0].age").doesNotExist());
+
+        // 없는 필드는 500 이 아니라 400
+        mockMvc.perform(get("/v1/members").param("fields", "username,password"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("Unknown field: password")));
+    }
+
+    @Test
+    public void streamTest() throws Exception {
+        String body = mockMvc.perform(get("/v1/members/stream")
+                        .param("teamName", "teamA")
+                        .param("usernameContains", "2"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body).isEqualTo(
+                "{\"memberId\":" + memberId("member2") + ",\"username\":\"member2\",\"age\":20,"
+                        + "\"teamId\":" + teamAId + ",\"teamName\":\"teamA\"}\n");
+    }
+
+    @Test
+    public void cursorTest() throws Exception {
+        String nextCursor = JsonPath.read(mockMvc.perform(get("/v4/members").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn().getResponse().getContentAsString(), "$.nextCursor");
+
+        mockMvc.perform(get("/v4/members").param("cursor", nextCursor).param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].username").value("user3"))
+                .andExpect(jsonPath("$.hasNext").value(false));
+
+        // 아주 큰 size 는 최대 페이지 크기로 줄인다. (limit(size + 1) 이 넘치지 않는다)
+        mockMvc.perform(get("/v4/members").param("size", String.valueOf(Integer.MAX_VALUE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(3)))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    public void cursorBadRequestTest() throws Exception {
+        // 디코딩할 수 없는 커서, 형식이 다른 커서, 0 이하 size 는 500 이 아니라 400
+        mockMvc.perform(get("/v4/members").param("cursor", "!!not-base64!!"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("Invalid cursor")));
+        mockMvc.perform(get("/v4/members").param("cursor", "bm90LWFuLWlk"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v4/members").param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Long memberId(String username) {
+        return em.createQuery("select m.id from Member m where m.username = :username", Long.class)
+                .setParameter("username", username)
+                .getSingleResult();
+    }
+}
@@ -0,0 +1,100 @@
+package study.querydesl.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydesl.dto.MemberSearchCondition;
+import study.querydesl.entity.Member;
+import study.querydesl.entity.Team;
+import study.querydesl.repository.MemberJpaRepository;
+import study.querydesl.repository.MemberRepository;
+import study.querydesl.repository.support.ResultLimitExceededException;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 최대 건수를 2건으로 낮춰서 페이징 없는 조회가 막히는지 확인
+ */
+@Transactional
+@SpringBootTest(properties = "querydsl.max-results=2")
+@AutoConfigureMockMvc
+class ResultLimitTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30));
+    }
+
+    @Test
+    public void repositoryTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        assertThatThrownBy(() -> memberJpaRepository.search(condition))
+                .isInstanceOf(ResultLimitExceededException.class);
+        assertThatThrownBy(() -> memberRepository.search(condition))
+                .isInstanceOf(ResultLimitExceededException.class);
+
+        // 최대 건수 이하면 그대로
+        condition.setTeamName("teamA");
+        assertThat(memberJpaRepository.search(condition)).hasSize(2);
+        assertThat(memberRepository.search(condition)).hasSize(2);
+    }
+
+    @Test
+    public void apiTest() throws Exception {
+        mockMvc.perform(get("/v1/members"))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.maxResults").value(2))
+                .andExpect(jsonPath("$.message", containsString("page by page")));
+
+        // 페이징 API 는 제한과 관계없다.
+        mockMvc.perform(get("/v2/members").param("page", "0").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(3)));
+    }
+
+    @Test
+    public void streamJsonTest() throws Exception {
+        // JSON 배열 스트리밍도 /v1/members 와 같이 제한하고, 쓰기 전에 확인하므로 본문은 422 응답뿐이다.
+        mockMvc.perform(get("/v1/members/stream-json"))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.maxResults").value(2));
+
+        mockMvc.perform(get("/v1/members/stream-json").param("teamName", "teamA"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        // 안내하는 NDJSON 스트림(/v1/members/stream)은 제한하지 않는다.
+        String body = mockMvc.perform(get("/v1/members/stream"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(body.split("\n")).hasSize(3);
+    }
+}
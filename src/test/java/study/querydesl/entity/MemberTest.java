@@ -7,6 +7,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -50,4 +52,27 @@ class MemberTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void teamNameCopyTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        Member member = new Member("member1", 10, teamA);
+        assertEquals("teamA", member.getTeamName());
+
+        member.changeTeam(teamB);
+        assertEquals(teamB, member.getTeam());
+        assertEquals("teamB", member.getTeamName());
+
+        // 팀/팀 이름 복사본을 따로 바꾸는 public setter 가 없다. (changeTeam, assignTeam, TeamService.rename 으로만)
+        List<String> methods = new ArrayList<>();
+        for (Method method : Member.class.getMethods()) {
+            methods.add(method.getName());
+        }
+        for (Method method : Team.class.getMethods()) {
+            methods.add(method.getName());
+        }
+        assertFalse(methods.contains("setTeam"));
+        assertFalse(methods.contains("setTeamName"));
+        assertFalse(methods.contains("setName"));
+    }
+}
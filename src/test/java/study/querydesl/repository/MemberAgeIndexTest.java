@@ -0,0 +1,153 @@
+package study.querydesl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydesl.CommittedTestData;
+import study.querydesl.dto.MemberSearchCondition;
+import study.querydesl.dto.MemberTeamDto;
+import study.querydesl.entity.Member;
+import study.querydesl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydesl.entity.QMember.member;
+
+/**
+ * 나이 인덱스를 켜고 searchPageComplex 결과를 DB 조회와 비교
+ * : 인덱스는 커밋된 변경만 반영하므로 롤백 테스트 대신 커밋하고 뒷정리한다.
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@SpringBootTest(properties = "member.age-index.enabled=true")
+class MemberAgeIndexTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberAgeIndex memberAgeIndex;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            for (int i = 0; i < 30; i++) {
+                em.persist(new Member("member" + i, (i * 7) % 50, i % 2 == 0 ? teamA : null));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        CommittedTestData.deleteAll(transactionManager, em, eventPublisher);
+    }
+
+    @Test
+    public void sameAsDbTest() {
+        assertSameAsDb(10, 30);
+        assertSameAsDb(null, 20);
+        assertSameAsDb(40, null);
+        assertSameAsDb(60, null);
+    }
+
+    @Test
+    public void chunkedBulkTest() {
+        // 나이 변경은 청크 id 구간만 다시 읽는다.
+        memberJpaRepository.bulkAgePlusChunked(3, null);
+        assertThat(memberAgeIndex.isUsable()).isTrue();
+        assertSameAsDb(10, 30);
+
+        memberJpaRepository.bulkDeleteByAgeGtChunked(40, null);
+        assertSameAsDb(0, null);
+
+        // 저장/변경/삭제 이벤트
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("member100", 25));
+            em.createQuery("select m from Member m where m.username = 'member1'", Member.class)
+                    .getSingleResult().setAge(99);
+        });
+        assertSameAsDb(20, null);
+    }
+
+    @Test
+    public void unknownBulkRebuildTest() throws InterruptedException {
+        // id 구간을 모르는 벌크 연산은 백그라운드에서 전체를 다시 읽고, 그동안은 DB 로 조회한다.
+        tx.executeWithoutResult(status -> memberJpaRepository.bulkAgePlus(1));
+        for (int i = 0; i < 100 && !memberAgeIndex.isUsable(); i++) {
+            Thread.sleep(50);
+        }
+        assertThat(memberAgeIndex.isUsable()).isTrue();
+        assertSameAsDb(10, 30);
+    }
+
+    @Test
+    public void pendingWritesTest() {
+        // 커밋 전 변경이 있는 트랜잭션에서는 인덱스 대신 DB 로 조회한다.
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("member200", 15));
+            em.flush();
+            assertThat(memberAgeIndex.isUsable()).isFalse();
+
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setAgeGoe(15);
+            condition.setAgeLoe(15);
+            assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(0, 10)).getContent())
+                    .extracting(MemberTeamDto::getUsername).contains("member200");
+            status.setRollbackOnly();
+        });
+        assertThat(memberAgeIndex.isUsable()).isTrue();
+    }
+
+    // 인덱스 경로의 건수와 페이지별 id 가 (나이, id) 로 정렬한 DB 조회와 같다.
+    private void assertSameAsDb(Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        assertThat(memberAgeIndex.canServe(condition)).isTrue();
+
+        List<Long> expected = tx.execute(status -> new JPAQueryFactory(em)
+                .select(member.id)
+                .from(member)
+                .where(ageGoe != null ? member.age.goe(ageGoe) : null,
+                        ageLoe != null ? member.age.loe(ageLoe) : null)
+                .orderBy(member.age.asc(), member.id.asc())
+                .fetch());
+
+        int pageSize = 4;
+        for (int page = 0; page * pageSize <= expected.size(); page++) {
+            Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, PageRequest.of(page, pageSize));
+            assertThat(result.getTotalElements()).isEqualTo(expected.size());
+            List<Long> ids = result.getContent().stream().map(MemberTeamDto::getMemberId).collect(Collectors.toList());
+            assertThat(ids).isEqualTo(expected.subList(page * pageSize, Math.min(expected.size(), (page + 1) * pageSize)));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package study.querydesl.repository;
+
+import org.junit.jupiter.api.Test;
+import study.querydesl.dto.MemberTeamDto;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberColumnarStoreTest {
+
+    @Test
+    public void searchTest() {
+        MemberColumnarStore store = new MemberColumnarStore();
+        store.upsert(new MemberTeamDto(1L, "member1", 10, 1L, "teamA"));
+        store.upsert(new MemberTeamDto(2L, "member2", 20, 1L, "teamA"));
+        store.upsert(new MemberTeamDto(3L, "member3", 30, 2L, "teamB"));
+        store.upsert(new MemberTeamDto(4L, "member4", 40, 2L, "teamB"));
+        store.upsert(new MemberTeamDto(5L, "member5", 50, null, null));
+
+        MemberColumnarStore.Matches teamB = store.search(new MemberColumnarStore.Filter(null, "teamB", 35, null), 0, 10);
+        assertThat(teamB.total).isEqualTo(1);
+        assertThat(teamB.content).extracting("username").containsExactly("member4");
+
+        MemberColumnarStore.Matches page = store.search(new MemberColumnarStore.Filter(null, null, 20, null), 1, 2);
+        assertThat(page.total).isEqualTo(4);
+        assertThat(page.content).extracting("username").containsExactly("member3", "member4");
+
+        assertThat(store.search(new MemberColumnarStore.Filter("nobody", null, null, null), 0, 10).total).isZero();
+
+        // 팀 이동과 삭제
+        store.upsert(new MemberTeamDto(1L, "member1", 10, 2L, "teamB"));
+        store.remove(3L);
+        MemberColumnarStore.Matches moved = store.search(new MemberColumnarStore.Filter(null, "teamB", null, null), 0, 10);
+        assertThat(moved.content).extracting("memberId").containsExactlyInAnyOrder(1L, 4L);
+
+        List<MemberTeamDto> cursor = store.searchAfter(new MemberColumnarStore.Filter(null, null, null, null), 1L, 2);
+        assertThat(cursor).extracting("memberId").containsExactly(2L, 4L);
+    }
+
+    @Test
+    public void eventUpsertTest() {
+        MemberColumnarStore store = new MemberColumnarStore();
+        store.upsert(new MemberTeamDto(1L, "member1", 10, 1L, "teamA"));
+
+        // 이미 아는 팀이면 팀명 없이 이벤트 값으로 바로 반영한다.
+        assertThat(store.upsert(2L, "member2", 1L, 20)).isTrue();
+        assertThat(store.upsert(1L, "member1", null, 11)).isTrue();
+        MemberColumnarStore.Matches teamA = store.search(new MemberColumnarStore.Filter(null, "teamA", null, null), 0, 10);
+        assertThat(teamA.content).extracting("memberId").containsExactly(2L);
+        assertThat(teamA.content).extracting("teamName").containsExactly("teamA");
+        assertThat(store.search(new MemberColumnarStore.Filter(null, null, 11, 11), 0, 10).content)
+                .extracting("memberId").containsExactly(1L);
+
+        // 모르는 팀이거나 이름이 바뀌었을 수 있는 팀이면 반영하지 않는다.
+        assertThat(store.upsert(3L, "member3", 2L, 30)).isFalse();
+        store.forgetTeams(Set.of(1L));
+        assertThat(store.upsert(2L, "member2", 1L, 21)).isFalse();
+        assertThat(store.size()).isEqualTo(2);
+
+        store.remove(2L);
+        store.remove(2L);
+        assertThat(store.size()).isEqualTo(1);
+    }
+}
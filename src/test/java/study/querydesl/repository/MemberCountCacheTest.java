@@ -0,0 +1,74 @@
+package study.querydesl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydesl.CommittedTestData;
+import study.querydesl.entity.Member;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * count 캐시는 커밋/롤백 시점에 무효화되므로 롤백 테스트 대신 커밋하고 뒷정리한다. (테스트 설정의 TTL 은 30초)
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@SpringBootTest
+class MemberCountCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    MemberCountCache memberCountCache;
+
+    @AfterEach
+    public void after() {
+        CommittedTestData.deleteAll(transactionManager, em, eventPublisher);
+    }
+
+    @Test
+    public void ttlHitTest() {
+        Object key = "ttlHitTest";
+        assertThat(memberCountCache.get(key, () -> 5)).isEqualTo(5);
+        assertThat(memberCountCache.get(key, () -> 6)).isEqualTo(5);
+
+        // 커밋되면 무효화
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> em.persist(new Member("member1", 10)));
+        assertThat(memberCountCache.get(key, () -> 7)).isEqualTo(7);
+    }
+
+    @Test
+    public void rollbackTest() {
+        Object key = "rollbackTest";
+        assertThat(memberCountCache.get(key, () -> 5)).isEqualTo(5);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.persist(new Member("phantom", 10));
+            // 쓰는 트랜잭션 안에서는 캐시를 읽지도 채우지도 않는다.
+            assertThat(memberCountCache.get(key, () -> 6)).isEqualTo(6);
+            em.flush();
+            assertThat(memberCountCache.get(key, () -> 6)).isEqualTo(6);
+            memberCountCache.put(key, 6);
+            assertThat(memberCountCache.getEstimate(key)).isNull();
+            status.setRollbackOnly();
+        });
+
+        // 롤백되어도 무효화되고, 커밋 전 값(6)은 남아 있지 않다.
+        assertThat(memberCountCache.get(key, () -> 5)).isEqualTo(5);
+        assertThat(memberCountCache.get(key, () -> 7)).isEqualTo(5);
+    }
+}
@@ -9,10 +9,13 @@ import study.querydesl.dto.MemberSearchCondition;
 import study.querydesl.dto.MemberTeamDto;
 import study.querydesl.entity.Member;
 import study.querydesl.entity.Team;
+import study.querydesl.repository.support.UnknownFieldException;
 
 import javax.persistence.EntityManager;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -70,6 +73,52 @@ class MemberJpaRepositoryTest {
         assertThat(result).extracting("username").containsExactly("member4");
     }
 
+    @Test
+    public void bulkTest() {
+        memberJpaRepository.save(new Member("member1", 10));
+        memberJpaRepository.save(new Member("member2", 20));
+        memberJpaRepository.save(new Member("member3", 30));
+
+        long updated = memberJpaRepository.bulkAgePlus(1);
+        long deleted = memberJpaRepository.bulkDeleteByAgeGt(25);
+
+        assertThat(updated).isEqualTo(3);
+        assertThat(deleted).isEqualTo(1);
+        assertThat(memberJpaRepository.findAll()).extracting("age").containsExactly(11, 21);
+    }
+
+    @Test
+    public void searchFieldsTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+
+        // 요청한 필드만, 요청한 순서대로 (team 조인 없이 teamId 는 FK 로)
+        List<Map<String, Object>> result = memberJpaRepository.searchFields(condition, Arrays.asList("username", "teamId"));
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0).keySet()).containsExactly("username", "teamId");
+        assertThat(result).extracting("teamId").containsExactlyInAnyOrder(teamA.getId(), null);
+
+        condition.setTeamName("teamA");
+        result = memberJpaRepository.searchFields(condition, Arrays.asList("memberId", "teamName"));
+        assertThat(result).extracting("teamName").containsExactly("teamA");
+
+        // 회원명 부분 검색도 같이 적용
+        condition.setTeamName(null);
+        condition.setUsernameContains("BER2");
+        result = memberJpaRepository.searchFields(condition, Arrays.asList("username"));
+        assertThat(result).extracting("username").containsExactly("member2");
+
+        // 없는 필드 (컨트롤러에서 400)
+        assertThatThrownBy(() -> memberJpaRepository.searchFields(condition, Arrays.asList("password")))
+                .isInstanceOfSatisfying(UnknownFieldException.class,
+                        e -> assertThat(e.getField()).isEqualTo("password"));
+    }
+
 
 }
 
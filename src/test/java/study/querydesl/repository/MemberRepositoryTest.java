@@ -5,14 +5,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydesl.dto.CursorResult;
 import study.querydesl.dto.MemberSearchCondition;
 import study.querydesl.dto.MemberTeamDto;
 import study.querydesl.entity.Member;
 import study.querydesl.entity.QMember;
 import study.querydesl.entity.Team;
+import study.querydesl.service.TeamService;
 
 import javax.persistence.EntityManager;
 import java.util.List;
@@ -30,6 +33,12 @@ class MemberRepositoryTest {
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    MemberIndexChecker memberIndexChecker;
+
+    @Autowired
+    TeamService teamService;
+
     @Test
     public void basicTet() {
         Member member = new Member("member1", 10);
@@ -101,6 +110,94 @@ class MemberRepositoryTest {
         assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
     }
 
+    @Test
+    public void searchPageComplexCountTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        // team 조인 없이 count
+        Page<MemberTeamDto> all = memberRepository.searchPageComplex(new MemberSearchCondition(), PageRequest.of(0, 3));
+        assertThat(all.getTotalElements()).isEqualTo(4);
+
+        // teamName 조건이 있으면 team 조인 유지
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        Page<MemberTeamDto> teamBPage = memberRepository.searchPageComplex(condition, PageRequest.of(0, 1));
+        assertThat(teamBPage.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    public void searchSliceTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, PageRequest.of(0, 3));
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(first.hasNext()).isTrue();
+
+        Slice<MemberTeamDto> second = memberRepository.searchSlice(condition, PageRequest.of(1, 3));
+        assertThat(second.getContent()).extracting("username").containsExactly("member4");
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    public void searchByCursorTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        CursorResult<MemberTeamDto> first = memberRepository.searchByCursor(condition, null, 3);
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(first.isHasNext()).isTrue();
+
+        CursorResult<MemberTeamDto> second = memberRepository.searchByCursor(condition, first.getNextCursor(), 3);
+        assertThat(second.getContent()).extracting("username").containsExactly("member4");
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+    }
+
     @Test
     public void querydslPredicateExecutorTest() {
         Team teamA = new Team("teamA");
@@ -125,4 +222,58 @@ class MemberRepositoryTest {
             System.out.println("findMember = " + findMember);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void searchIndexCoverageTest() {
+        // 조건이 있는 검색 shape 는 모두 인덱스를 타야 한다.
+        assertThat(memberIndexChecker.tableScans()).isEmpty();
+    }
+
+    @Test
+    public void searchWithoutJoinTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.flush();
+        em.clear();
+
+        // 팀 이름을 바꾸면 회원의 team_name 도 같이 바뀐다.
+        teamService.rename(teamA.getId(), "teamC");
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamC");
+
+        List<MemberTeamDto> result = memberRepository.searchWithoutJoin(condition);
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("member1", "member2");
+        assertThat(result).extracting("teamId").containsOnly(teamA.getId());
+        assertThat(result).extracting("teamName").containsOnly("teamC");
+    }
+
+    @Test
+    public void searchUsernameContainsTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("Member2", 20, teamA));
+        em.persist(new Member("admin", 30, teamA));
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameContains("MEMBER");
+
+        List<MemberTeamDto> result = memberRepository.search(condition);
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("member1", "Member2");
+
+        condition.setAgeGoe(15);
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(0, 10));
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        assertThat(page.getContent()).extracting("username").containsExactly("Member2");
+    }
+}
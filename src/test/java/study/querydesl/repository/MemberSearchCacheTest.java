@@ -0,0 +1,109 @@
+package study.querydesl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydesl.CommittedTestData;
+import study.querydesl.dto.MemberSearchCondition;
+import study.querydesl.dto.MemberTeamDto;
+import study.querydesl.entity.Member;
+import study.querydesl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 검색 결과 캐시는 커밋/롤백 시점에 무효화되므로 롤백 테스트 대신 커밋하고 뒷정리한다.
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@SpringBootTest
+class MemberSearchCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberSearchCache memberSearchCache;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        CommittedTestData.deleteAll(transactionManager, em, eventPublisher);
+    }
+
+    @Test
+    public void hitTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        long hits = memberSearchCache.stats().getHitCount();
+        assertThat(memberRepository.search(condition)).hasSize(2);
+        assertThat(memberRepository.search(condition)).hasSize(2);
+        assertThat(memberSearchCache.stats().getHitCount()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    public void invalidateAfterCommitTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        assertThat(memberRepository.search(condition)).hasSize(2);
+
+        tx.executeWithoutResult(status -> {
+            Team teamA = em.createQuery("select t from Team t where t.name = 'teamA'", Team.class).getSingleResult();
+            em.persist(new Member("member3", 30, teamA));
+        });
+
+        assertThat(memberRepository.search(condition)).extracting(MemberTeamDto::getUsername)
+                .containsExactlyInAnyOrder("member1", "member2", "member3");
+    }
+
+    @Test
+    public void rollbackTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        // 쓰는 트랜잭션 안에서는 커밋 전 데이터가 보이지만 캐시에 남지 않아야 한다.
+        tx.executeWithoutResult(status -> {
+            Team teamA = em.createQuery("select t from Team t where t.name = 'teamA'", Team.class).getSingleResult();
+            em.persist(new Member("phantom", 30, teamA));
+
+            List<MemberTeamDto> inTx = memberRepository.search(condition);
+            assertThat(inTx).extracting(MemberTeamDto::getUsername).contains("phantom");
+            assertThat(memberRepository.search(condition)).extracting(MemberTeamDto::getUsername).contains("phantom");
+            status.setRollbackOnly();
+        });
+
+        assertThat(memberRepository.search(condition)).extracting(MemberTeamDto::getUsername)
+                .containsExactlyInAnyOrder("member1", "member2");
+    }
+}
@@ -0,0 +1,148 @@
+package study.querydesl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydesl.dto.MemberSearchCondition;
+import study.querydesl.dto.MemberTeamDto;
+import study.querydesl.dto.MemberTeamDtoProjection;
+import study.querydesl.entity.Member;
+import study.querydesl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydesl.entity.QMember.member;
+import static study.querydesl.entity.QTeam.team;
+
+@Transactional
+@SpringBootTest
+class MemberTestRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        // 나이가 겹치게 넣어서 정렬 순서가 id 순서와 다르게
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("member" + i, (i * 7) % 5 * 10, i % 3 == 0 ? null : i % 2 == 0 ? teamA : teamB));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void searchPageDeferredJoinTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+
+        // id 페이지 순서(나이 내림차순, id 오름차순)를 컨텐츠 조회 후에도 유지한다.
+        List<Long> expected = new JPAQueryFactory(em)
+                .select(member.id)
+                .from(member)
+                .where(member.age.goe(10))
+                .orderBy(member.age.desc(), member.id.asc())
+                .fetch();
+        assertThat(expected).hasSizeGreaterThan(3);
+
+        Sort sort = Sort.by(Sort.Order.desc("age"), Sort.Order.asc("id"));
+        int pageSize = 3;
+        for (int page = 0; page * pageSize < expected.size(); page++) {
+            Page<MemberTeamDto> result = memberTestRepository.searchPageDeferredJoin(condition,
+                    PageRequest.of(page, pageSize, sort));
+
+            assertThat(result.getTotalElements()).isEqualTo(expected.size());
+            assertThat(idsOf(result))
+                    .isEqualTo(expected.subList(page * pageSize, Math.min(expected.size(), (page + 1) * pageSize)));
+        }
+
+        // 범위를 벗어난 페이지는 비어 있고 건수는 count 쿼리로 구한다.
+        Page<MemberTeamDto> empty = memberTestRepository.searchPageDeferredJoin(condition, PageRequest.of(10, pageSize, sort));
+        assertThat(empty.getContent()).isEmpty();
+        assertThat(empty.getTotalElements()).isEqualTo(expected.size());
+    }
+
+    @Test
+    public void searchPageDeferredJoinTeamTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        List<MemberTeamDto> expected = new JPAQueryFactory(em)
+                .select(new MemberTeamDtoProjection(member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq("teamA"))
+                .orderBy(member.username.desc())
+                .fetch();
+
+        Page<MemberTeamDto> result = memberTestRepository.searchPageDeferredJoin(condition,
+                PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "username")));
+
+        // 한 페이지에 다 들어오면 count 없이 컨텐츠 크기가 건수
+        assertThat(result.getTotalElements()).isEqualTo(expected.size());
+        assertThat(result.getContent()).usingRecursiveFieldByFieldElementComparator().isEqualTo(expected);
+    }
+
+    @Test
+    public void searchCachedTest() {
+        List<Member> cached = em.createQuery("select m from Member m left join fetch m.team", Member.class)
+                .getResultList();
+
+        // 같은 조건을 DB 에 보낸 결과와 같은 회원을 거른다.
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(20);
+        assertThat(idsOf(memberTestRepository.searchCached(cached, condition))).containsExactlyInAnyOrderElementsOf(
+                idsOf(team.name.eq("teamA").and(member.age.goe(20))));
+
+        // 조건 모양이 같고 값만 다르면 컴파일해 둔 matcher 를 그대로 쓴다.
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(null);
+        condition.setAgeLoe(20);
+        assertThat(idsOf(memberTestRepository.searchCached(cached, condition))).containsExactlyInAnyOrderElementsOf(
+                idsOf(team.name.eq("teamB").and(member.age.loe(20))));
+
+        // usernameContains 는 대소문자를 구분하지 않고, 팀이 없는 회원도 대상이다.
+        MemberSearchCondition contains = new MemberSearchCondition();
+        contains.setUsernameContains("MEMBER1");
+        assertThat(idsOf(memberTestRepository.searchCached(cached, contains))).containsExactlyInAnyOrderElementsOf(
+                idsOf(member.username.containsIgnoreCase("member1")));
+        assertThat(memberTestRepository.searchCached(cached, new MemberSearchCondition())).hasSameSizeAs(cached);
+    }
+
+    private List<Long> idsOf(Predicate where) {
+        List<Long> ids = new JPAQueryFactory(em)
+                .select(member.id)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(where)
+                .fetch();
+        assertThat(ids).isNotEmpty();
+        return ids;
+    }
+
+    private static List<Long> idsOf(List<Member> members) {
+        return members.stream().map(Member::getId).collect(Collectors.toList());
+    }
+
+    private static List<Long> idsOf(Page<MemberTeamDto> page) {
+        return page.getContent().stream().map(MemberTeamDto::getMemberId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,174 @@
+package study.querydesl.repository;
+
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydesl.CommittedTestData;
+import study.querydesl.dto.MemberSearchCondition;
+import study.querydesl.dto.MemberTeamDto;
+import study.querydesl.entity.Member;
+import study.querydesl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydesl.entity.QMember.member;
+
+/**
+ * 회원명 인덱스를 켜고 usernameContains 검색 결과를 DB 의 like 검색과 비교
+ * : 인덱스는 커밋된 변경만 반영하므로 롤백 테스트 대신 커밋하고 뒷정리한다.
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@SpringBootTest(properties = "member.username-index.enabled=true")
+class MemberUsernameIndexTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @Autowired
+    MemberUsernameIndex memberUsernameIndex;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            for (int i = 0; i < 30; i++) {
+                em.persist(new Member((i % 3 == 0 ? "Member" : "user") + i, i, i % 2 == 0 ? teamA : null));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        CommittedTestData.deleteAll(transactionManager, em, eventPublisher);
+    }
+
+    @Test
+    public void sameAsDbTest() {
+        assertSameAsDb("member1");
+        assertSameAsDb("MEMBER");
+        assertSameAsDb("er2");
+        assertSameAsDb("nobody");
+    }
+
+    @Test
+    public void shortKeywordTest() {
+        // 3글자보다 짧으면 인덱스 후보를 만들지 않고 바로 like
+        assertThat(memberUsernameIndex.contains("r1")).isEqualTo(member.username.containsIgnoreCase("r1"));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameContains("r1");
+        assertThat(memberJpaRepository.search(condition)).extracting(MemberTeamDto::getUsername)
+                .containsExactlyInAnyOrder("user1", "Member12", "Member15", "Member18", "user10", "user11",
+                        "user13", "user14", "user16", "user17", "user19");
+    }
+
+    @Test
+    public void incrementalUpdateTest() {
+        // 회원명 변경은 청크 id 구간만 다시 읽는다.
+        memberJpaRepository.bulkUpdateUsernameChunked("renamed", 10, null);
+        assertThat(memberUsernameIndex.isUsable()).isTrue();
+        assertSameAsDb("renamed");
+        assertSameAsDb("member");
+
+        // 나이만 바뀌는 벌크 연산은 회원명 인덱스와 관계없다.
+        tx.executeWithoutResult(status -> memberJpaRepository.bulkAgePlus(1));
+        assertThat(memberUsernameIndex.isUsable()).isTrue();
+
+        memberJpaRepository.bulkDeleteByAgeGtChunked(25, null);
+        assertSameAsDb("user2");
+
+        // 저장/변경/삭제 이벤트
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("newMember", 5));
+            Member user11 = em.createQuery("select m from Member m where m.username = 'user11'", Member.class)
+                    .getSingleResult();
+            user11.setUsername("Member11");
+            em.remove(em.createQuery("select m from Member m where m.username = 'user13'", Member.class)
+                    .getSingleResult());
+        });
+        assertSameAsDb("member");
+        assertSameAsDb("user1");
+    }
+
+    @Test
+    public void pendingWritesTest() {
+        // 커밋 전 변경이 있는 트랜잭션에서는 인덱스 대신 like 로 조회한다.
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("pending", 15));
+            em.flush();
+            assertThat(memberUsernameIndex.isUsable()).isFalse();
+
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsernameContains("pend");
+            assertThat(memberJpaRepository.search(condition))
+                    .extracting(MemberTeamDto::getUsername).containsExactly("pending");
+            status.setRollbackOnly();
+        });
+        assertThat(memberUsernameIndex.isUsable()).isTrue();
+    }
+
+    // 인덱스 경로(member.id in 후보)로 조회한 결과가 DB 의 like 검색과 같다.
+    private void assertSameAsDb(String keyword) {
+        BooleanExpression contains = memberUsernameIndex.contains(keyword);
+        assertThat(((Operation<?>) contains).getArg(0)).isEqualTo(member.id);
+
+        List<Long> expected = tx.execute(status -> new JPAQueryFactory(em)
+                .select(member.id)
+                .from(member)
+                .where(member.username.containsIgnoreCase(keyword))
+                .orderBy(member.id.asc())
+                .fetch());
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameContains(keyword);
+        assertThat(idsOf(memberJpaRepository.search(condition))).isEqualTo(expected);
+        assertThat(idsOf(memberJpaRepository.searchByBuilder(condition))).isEqualTo(expected);
+        assertThat(idsOf(memberQueryRepository.search(condition))).isEqualTo(expected);
+        assertThat(idsOf(memberRepository.search(condition))).isEqualTo(expected);
+        assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(0, 100)).getTotalElements())
+                .isEqualTo(expected.size());
+        assertThat(tx.execute(status -> {
+            try (Stream<MemberTeamDto> rows = memberJpaRepository.stream(condition, 10)) {
+                return idsOf(rows.collect(Collectors.toList()));
+            }
+        })).isEqualTo(expected);
+    }
+
+    private static List<Long> idsOf(List<MemberTeamDto> rows) {
+        return rows.stream().map(MemberTeamDto::getMemberId).sorted().collect(Collectors.toList());
+    }
+}
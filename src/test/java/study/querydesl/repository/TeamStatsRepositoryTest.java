@@ -0,0 +1,55 @@
+package study.querydesl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydesl.dto.TeamStatsDto;
+import study.querydesl.entity.Member;
+import study.querydesl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+@SpringBootTest
+class TeamStatsRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TeamStatsRepository teamStatsRepository;
+
+    @Test
+    public void rebuildAndCheckTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.flush();
+
+        teamStatsRepository.rebuild();
+        assertThat(teamStatsRepository.findInconsistent()).isEmpty();
+
+        TeamStatsDto statsA = teamStatsRepository.findByTeamId(teamA.getId());
+        assertThat(statsA.getMemberCount()).isEqualTo(2);
+        assertThat(statsA.getAgeAvg()).isEqualTo(15.0);
+        assertThat(statsA.getAgeMin()).isEqualTo(10);
+        assertThat(statsA.getAgeMax()).isEqualTo(20);
+
+        // 증분 반영 전에는 불일치로 잡힌다.
+        em.persist(new Member("member4", 40, em.find(Team.class, teamA.getId())));
+        em.flush();
+        assertThat(teamStatsRepository.findInconsistent()).containsExactly(teamA.getId());
+
+        teamStatsRepository.applyDelta(teamA.getId(), 1, 40, 40, 40);
+        assertThat(teamStatsRepository.findInconsistent()).isEmpty();
+        assertThat(teamStatsRepository.findByTeamId(teamA.getId()).getAgeMax()).isEqualTo(40);
+    }
+}
@@ -0,0 +1,140 @@
+package study.querydesl.repository.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydesl.CommittedTestData;
+import study.querydesl.entity.Member;
+import study.querydesl.entity.Team;
+import study.querydesl.repository.MemberJpaRepository;
+import study.querydesl.repository.TeamStatsRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydesl.entity.QMember.member;
+
+/**
+ * 청크(4건)마다 커밋하므로 롤백 테스트 대신 커밋하고 뒷정리한다.
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@SpringBootTest(properties = "querydsl.bulk.chunk-size=4")
+class ChunkedBulkExecutorTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    ChunkedBulkExecutor chunkedBulkExecutor;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    TeamStatsRepository teamStatsRepository;
+
+    @BeforeEach
+    public void before() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            for (int i = 0; i < 10; i++) {
+                em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : null));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        CommittedTestData.deleteAll(transactionManager, em, eventPublisher);
+    }
+
+    @Test
+    public void progressTest() {
+        List<BulkProgress> progress = new ArrayList<>();
+
+        BulkProgress result = memberJpaRepository.bulkAgePlusChunked(1, progress::add);
+
+        // 10건을 4건씩: 4, 4, 2
+        assertThat(progress).extracting("chunks").containsExactly(1, 2, 3);
+        assertThat(progress).extracting("affectedRows").containsExactly(4L, 8L, 10L);
+        assertThat(progress).extracting("done").containsExactly(false, false, true);
+        assertThat(progress.get(0).getLastId()).isLessThan(progress.get(1).getLastId());
+        assertThat(progress.get(2).getLastId()).isEqualTo(result.getMaxId());
+        assertThat(result.getAffectedRows()).isEqualTo(10);
+
+        assertThat(ages()).containsExactly(1, 11, 21, 31, 41, 51, 61, 71, 81, 91);
+        assertThat(teamStatsRepository.findInconsistent()).isEmpty();
+    }
+
+    @Test
+    public void sparseIdsTest() {
+        // 나이 > 20 인 7건만 대상이므로 조건에 맞는 id 기준으로 4, 3 건씩 나눈다.
+        List<BulkProgress> progress = new ArrayList<>();
+
+        BulkProgress result = memberJpaRepository.bulkDeleteByAgeGtChunked(20, progress::add);
+
+        assertThat(progress).extracting("affectedRows").containsExactly(4L, 7L);
+        assertThat(result.isDone()).isTrue();
+        assertThat(ages()).containsExactly(0, 10, 20);
+        assertThat(teamStatsRepository.findInconsistent()).isEmpty();
+    }
+
+    @Test
+    public void commitPerChunkTest() {
+        // 두 번째 청크에서 실패하면 첫 청크는 이미 커밋되었고 두 번째 청크만 롤백된다.
+        int[] calls = new int[1];
+        assertThatThrownBy(() -> chunkedBulkExecutor.execute(member, member.id, null,
+                (queryFactory, chunk, afterId, lastId) -> {
+                    long count = queryFactory
+                            .update(member)
+                            .set(member.username, "changed")
+                            .where(chunk)
+                            .execute();
+                    if (++calls[0] == 2) {
+                        throw new IllegalStateException("broken chunk");
+                    }
+                    return count;
+                }, null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("broken chunk");
+
+        List<String> usernames = new TransactionTemplate(transactionManager).execute(status -> em
+                .createQuery("select m.username from Member m order by m.id", String.class)
+                .getResultList());
+        assertThat(usernames).containsExactly("changed", "changed", "changed", "changed",
+                "member4", "member5", "member6", "member7", "member8", "member9");
+    }
+
+    @Test
+    public void transactionActiveTest() {
+        // 이미 시작된 트랜잭션 안에서는 청크마다 커밋할 수 없으므로 실행하지 않는다.
+        assertThatThrownBy(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                chunkedBulkExecutor.execute(member, member.id, null,
+                        (queryFactory, chunk, afterId, lastId) -> 0L, null)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("cannot run inside an existing transaction");
+    }
+
+    private List<Integer> ages() {
+        return new TransactionTemplate(transactionManager).execute(status -> em
+                .createQuery("select m.age from Member m order by m.id", Integer.class)
+                .getResultList());
+    }
+}
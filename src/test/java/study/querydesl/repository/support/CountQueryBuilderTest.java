@@ -0,0 +1,126 @@
+package study.querydesl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydesl.entity.Member;
+import study.querydesl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydesl.entity.QMember.member;
+import static study.querydesl.entity.QTeam.team;
+
+@Transactional
+@SpringBootTest
+class CountQueryBuilderTest {
+
+    @Autowired
+    EntityManager em;
+
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before() {
+        queryFactory = new JPAQueryFactory(em);
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        Team teamC = new Team("teamC");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(teamC);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void unreferencedFetchJoinDroppedTest() {
+        JPAQuery<Member> content = queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(member.age.goe(20))
+                .orderBy(member.age.desc());
+
+        JPAQuery<Long> count = CountQueryBuilder.from(em, content);
+
+        assertThat(count.getMetadata().getJoins()).hasSize(1);
+        assertThat(count.getMetadata().getOrderBy()).isEmpty();
+        assertThat(count.fetchOne()).isEqualTo(content.fetch().size()).isEqualTo(4);
+    }
+
+    @Test
+    public void referencedJoinKeptWithoutFetchTest() {
+        JPAQuery<Member> content = queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(team.name.eq("teamA"));
+
+        QueryMetadata metadata = CountQueryBuilder.from(em, content).getMetadata();
+
+        assertThat(metadata.getJoins()).hasSize(2);
+        // fetch join 플래그는 옮기지 않는다.
+        assertThat(metadata.getFlags()).isEmpty();
+        for (JoinExpression join : metadata.getJoins()) {
+            assertThat(join.getFlags()).isEmpty();
+        }
+        assertThat(CountQueryBuilder.from(em, content).fetchOne()).isEqualTo(2);
+    }
+
+    @Test
+    public void toManyJoinTest() {
+        // 루트를 distinct 로 조회하면 참조하지 않는 컬렉션 join 은 건수와 관계없으므로 제거
+        JPAQuery<Team> distinctTeams = queryFactory
+                .selectFrom(team)
+                .leftJoin(team.members, member).fetchJoin()
+                .distinct();
+        JPAQuery<Long> count = CountQueryBuilder.from(em, distinctTeams);
+        assertThat(count.getMetadata().getJoins()).hasSize(1);
+        assertThat(count.fetchOne()).isEqualTo(distinctTeams.fetch().size()).isEqualTo(3);
+
+        // distinct 가 아니면 컬렉션 join 이 row 수를 바꾸므로 유지
+        JPAQuery<Team> teamRows = queryFactory
+                .selectFrom(team)
+                .leftJoin(team.members, member);
+        count = CountQueryBuilder.from(em, teamRows);
+        assertThat(count.getMetadata().getJoins()).hasSize(2);
+        assertThat(count.fetchOne()).isEqualTo(teamRows.fetch().size()).isEqualTo(5);
+
+        // where 에서 참조하는 컬렉션 join 은 유지하고 count(distinct)
+        JPAQuery<Team> filteredTeams = queryFactory
+                .selectFrom(team)
+                .join(team.members, member)
+                .where(member.age.goe(20))
+                .distinct();
+        count = CountQueryBuilder.from(em, filteredTeams);
+        assertThat(count.getMetadata().getJoins()).hasSize(2);
+        assertThat(count.fetchOne()).isEqualTo(filteredTeams.fetch().size()).isEqualTo(2);
+    }
+
+    @Test
+    public void distinctValueCannotDeriveTest() {
+        // 서로 다른 팀 이름의 수는 root.count() 로 셀 수 없다.
+        JPAQuery<String> distinctNames = queryFactory
+                .select(team.name)
+                .distinct()
+                .from(member)
+                .join(member.team, team);
+
+        assertThat(CountQueryBuilder.canDerive(distinctNames)).isFalse();
+        assertThatThrownBy(() -> CountQueryBuilder.from(em, distinctNames))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(CountQueryBuilder.canDerive(queryFactory.selectFrom(member).distinct())).isTrue();
+    }
+}
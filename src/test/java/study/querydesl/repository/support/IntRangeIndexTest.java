@@ -0,0 +1,53 @@
+package study.querydesl.repository.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IntRangeIndexTest {
+
+    @Test
+    public void rangeTest() {
+        IntRangeIndex index = new IntRangeIndex();
+        index.put(1L, 10);
+        index.put(2L, 20);
+        index.put(3L, 30);
+        index.put(4L, 40);
+        index.put(5L, 20);
+
+        assertThat(index.count(20, 30)).isEqualTo(3);
+        assertThat(index.count(Integer.MIN_VALUE, Integer.MAX_VALUE)).isEqualTo(5);
+        assertThat(index.count(41, 50)).isZero();
+
+        // (나이, id) 순서
+        assertThat(index.range(15, 40, 0, 10)).containsExactly(2L, 5L, 3L, 4L);
+        assertThat(index.range(15, 40, 1, 2)).containsExactly(5L, 3L);
+        assertThat(index.range(15, 40, 4, 2)).isEmpty();
+
+        // 나이 변경과 삭제
+        index.put(2L, 35);
+        index.remove(3L);
+        assertThat(index.count(20, 30)).isEqualTo(1);
+        assertThat(index.range(15, 40, 0, 10)).containsExactly(5L, 2L, 4L);
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    public void replaceRangeTest() {
+        IntRangeIndex index = new IntRangeIndex();
+        for (long id = 1; id <= 10; id++) {
+            index.put(id, (int) id * 10);
+        }
+
+        // (3, 6] 구간: 4 는 삭제, 5 는 나이 변경, 6 은 그대로, 구간 밖은 건드리지 않는다.
+        index.replaceRange(3L, 6L, new long[]{5L, 6L}, new int[]{15, 60});
+        assertThat(index.size()).isEqualTo(9);
+        assertThat(index.range(Integer.MIN_VALUE, Integer.MAX_VALUE, 0, 20))
+                .containsExactly(1L, 5L, 2L, 3L, 6L, 7L, 8L, 9L, 10L);
+
+        // 끝이 없는 구간
+        index.replaceRange(Long.MIN_VALUE, Long.MAX_VALUE, new long[]{100L}, new int[]{1});
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.count(1, 1)).isEqualTo(1);
+    }
+}
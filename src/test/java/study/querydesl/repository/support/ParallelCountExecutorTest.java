@@ -0,0 +1,189 @@
+package study.querydesl.repository.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 풀 스레드 1개, 큐 1칸으로 count 가 필요 없을 때 실행되지 않고, 풀 스레드가 못 가져간 count 는 호출 스레드가 실행하는지 확인
+ * (트랜잭션은 아무 일도 하지 않는 트랜잭션 매니저로 대신한다)
+ */
+class ParallelCountExecutorTest {
+
+    ParallelCountExecutor executor = new ParallelCountExecutor(new NoOpTransactionManager(), 1, 1);
+
+    CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    public void after() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void countNeededTest() {
+        AtomicInteger counted = new AtomicInteger();
+        Page<Integer> page = executor.getPage(PageRequest.of(0, 2), () -> Arrays.asList(1, 2), () -> {
+            counted.incrementAndGet();
+            return 5L;
+        });
+
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(counted).hasValue(1);
+    }
+
+    @Test
+    public void queuedCountSkippedTest() throws Exception {
+        CompletableFuture<Page<Integer>> blocked = occupyPoolThread();
+
+        // 풀 스레드가 바쁜 동안 큐에 들어간 count 는 컨텐츠가 한 페이지보다 적으면 실행되지 않는다.
+        AtomicInteger counted = new AtomicInteger();
+        Page<Integer> page = executor.getPage(PageRequest.of(0, 10), () -> Arrays.asList(1, 2, 3), () -> {
+            counted.incrementAndGet();
+            return 3L;
+        });
+        assertThat(page.getTotalElements()).isEqualTo(3);
+
+        release.countDown();
+        assertThat(blocked.get(5, TimeUnit.SECONDS).getTotalElements()).isEqualTo(100);
+        // 큐에 있던 count 는 풀 스레드가 꺼내도 이미 끝난 것으로 표시되어 있어서 실행하지 않는다.
+        assertThat(counted).hasValue(0);
+    }
+
+    @Test
+    public void rejectedCountRunsOnlyWhenNeededTest() throws Exception {
+        occupyPoolThread();
+        // 큐를 채운다.
+        executor.getPage(PageRequest.of(0, 10), Collections::emptyList, () -> 0L);
+
+        // 풀과 큐가 가득 차면 count 는 미리 시작하지 않고, 필요할 때만 호출 스레드에서 실행한다.
+        AtomicInteger counted = new AtomicInteger();
+        Page<Integer> lastPage = executor.getPage(PageRequest.of(0, 10), () -> Arrays.asList(1, 2), () -> {
+            counted.incrementAndGet();
+            return 2L;
+        });
+        assertThat(lastPage.getTotalElements()).isEqualTo(2);
+        assertThat(counted).hasValue(0);
+
+        Page<Integer> fullPage = executor.getPage(PageRequest.of(0, 2), () -> Arrays.asList(1, 2), () -> {
+            counted.incrementAndGet();
+            return 9L;
+        });
+        assertThat(fullPage.getTotalElements()).isEqualTo(9);
+        assertThat(counted).hasValue(1);
+    }
+
+    @Test
+    public void queuedCountRunsOnCallerTest() throws Exception {
+        CompletableFuture<Page<Integer>> blocked = occupyPoolThread();
+
+        // count 가 필요한데 아직 큐에 있으면 풀 스레드를 기다리지 않고 호출 스레드에서 실행한다.
+        AtomicInteger counted = new AtomicInteger();
+        Page<Integer> page = executor.getPage(PageRequest.of(0, 2), () -> Arrays.asList(1, 2), () -> {
+            counted.incrementAndGet();
+            return 7L;
+        });
+        assertThat(page.getTotalElements()).isEqualTo(7);
+
+        release.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+        // 큐에서 꺼낸 풀 스레드는 다시 실행하지 않는다.
+        assertThat(counted).hasValue(1);
+    }
+
+    @Test
+    public void connectionWaitRunsOnCallerTest() throws Exception {
+        // 커넥션 풀이 바닥나서 풀 스레드가 트랜잭션(커넥션)을 시작하지 못하는 상황
+        CountDownLatch connection = new CountDownLatch(1);
+        CountDownLatch waiting = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        ParallelCountExecutor starved = new ParallelCountExecutor(new NoOpTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                waiting.countDown();
+                try {
+                    connection.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getTransaction(definition);
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+                finished.countDown();
+            }
+        }, 1, 1);
+        try {
+            AtomicInteger counted = new AtomicInteger();
+            Page<Integer> page = starved.getPage(PageRequest.of(0, 2), () -> {
+                try {
+                    waiting.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Arrays.asList(1, 2);
+            }, () -> {
+                counted.incrementAndGet();
+                return 4L;
+            });
+
+            // 커넥션을 기다리는 풀 스레드를 기다리지 않고 호출 스레드가 자기 커넥션으로 센다.
+            assertThat(page.getTotalElements()).isEqualTo(4);
+            // 나중에 커넥션을 얻은 풀 스레드는 이미 가져간 count 를 다시 실행하지 않는다.
+            connection.countDown();
+            assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(counted).hasValue(1);
+        } finally {
+            connection.countDown();
+            starved.shutdown();
+        }
+    }
+
+    // release 될 때까지 끝나지 않는 count 로 풀 스레드를 점유한다.
+    private CompletableFuture<Page<Integer>> occupyPoolThread() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Page<Integer>> blocked = CompletableFuture.supplyAsync(() ->
+                executor.getPage(PageRequest.of(0, 1), () -> Collections.singletonList(1), () -> {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return 100L;
+                }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        return blocked;
+    }
+
+    static class NoOpTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
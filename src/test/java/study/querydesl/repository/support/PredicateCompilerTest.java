@@ -0,0 +1,106 @@
+package study.querydesl.repository.support;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Predicate;
+import org.junit.jupiter.api.Test;
+import study.querydesl.dto.MemberSearchCondition;
+import study.querydesl.entity.Member;
+import study.querydesl.entity.Team;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydesl.entity.QMember.member;
+import static study.querydesl.entity.QTeam.team;
+
+// 조건 클래스의 게터를 publicLookup 으로 읽으므로 public
+public class PredicateCompilerTest {
+
+    PredicateCompiler compiler = new PredicateCompiler(member, team);
+
+    @Test
+    public void predicateTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(null);
+
+        // 직접 작성한 where 조건과 같다.
+        Predicate expected = new BooleanBuilder()
+                .and(member.username.eq("member1"))
+                .and(team.name.eq("teamA"))
+                .and(member.age.goe(10));
+        assertThat(compiler.predicate(condition).toString()).isEqualTo(expected.toString());
+
+        // 빈 문자열과 null 은 조건에서 빠진다.
+        condition.setUsername("");
+        condition.setTeamName(null);
+        assertThat(compiler.predicate(condition).toString()).isEqualTo(member.age.goe(10).toString());
+        assertThat(compiler.shapeOf(condition)).isEqualTo(1L << 2);
+        assertThat(compiler.paramsOf(condition)).hasSize(1).containsValue(10);
+    }
+
+    @Test
+    public void inAndLikeTest() {
+        TestCondition condition = new TestCondition();
+        condition.setTeamNames(Arrays.asList("teamA", "teamC"));
+        condition.setUsernameLike("member%");
+
+        BooleanBuilder predicate = (BooleanBuilder) compiler.predicate(condition);
+        Operation<?> and = (Operation<?>) predicate.getValue();
+        Operation<?> in = (Operation<?>) and.getArg(1);
+        assertThat(in.getOperator()).isEqualTo(Ops.IN);
+        assertThat(in.getArg(0).toString()).isEqualTo("team.name");
+
+        // Param 으로 만든 템플릿 조건도 같은 연산이라서 메모리 평가(PredicateEvaluator)로 그대로 쓸 수 있다.
+        long shape = compiler.shapeOf(condition);
+        assertThat(compiler.references(TestCondition.class, shape, team)).isTrue();
+        PredicateEvaluator.Matcher<Member> matcher = PredicateEvaluator.forEntity(member)
+                .bind(team, "team")
+                .compile(compiler.templatePredicate(TestCondition.class, shape));
+
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        List<Member> members = Arrays.asList(
+                new Member("member1", 10, teamA),
+                new Member("member2", 20, teamB),
+                new Member("user3", 30, teamA),
+                new Member("member4", 40, null));
+        assertThat(PredicateEvaluator.filter(members, matcher.with(compiler.paramsOf(condition))))
+                .extracting("username").containsExactly("member1");
+
+        // 빈 목록은 조건에서 빠지고 team 을 참조하지 않는다.
+        condition.setTeamNames(Collections.emptyList());
+        assertThat(compiler.references(TestCondition.class, compiler.shapeOf(condition), team)).isFalse();
+    }
+
+    public static class TestCondition {
+
+        @SearchField(path = "username", op = SearchField.Op.LIKE)
+        private String usernameLike;
+
+        @SearchField(path = "team.name", op = SearchField.Op.IN)
+        private List<String> teamNames;
+
+        public String getUsernameLike() {
+            return usernameLike;
+        }
+
+        public void setUsernameLike(String usernameLike) {
+            this.usernameLike = usernameLike;
+        }
+
+        public List<String> getTeamNames() {
+            return teamNames;
+        }
+
+        public void setTeamNames(List<String> teamNames) {
+            this.teamNames = teamNames;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package study.querydesl.repository.support;
+
+import com.querydsl.core.BooleanBuilder;
+import org.junit.jupiter.api.Test;
+import study.querydesl.dto.MemberTeamDto;
+import study.querydesl.entity.Member;
+import study.querydesl.entity.Team;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydesl.entity.QMember.member;
+import static study.querydesl.entity.QTeam.team;
+
+class PredicateEvaluatorTest {
+
+    @Test
+    public void entityTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        List<Member> members = Arrays.asList(
+                new Member("member1", 10, teamA),
+                new Member("member2", 20, teamA),
+                new Member("member3", 30, teamB),
+                new Member("member4", 40, null));
+
+        PredicateEvaluator<Member> evaluator = PredicateEvaluator.forEntity(member).bind(team, "team");
+
+        PredicateEvaluator.Matcher<Member> teamA20 = evaluator.compile(team.name.eq("teamA").and(member.age.goe(20)));
+        assertThat(PredicateEvaluator.filter(members, teamA20)).extracting("username").containsExactly("member2");
+
+        // member.team.name 경로도 같은 값을 읽고, 팀이 없는 회원은 SQL 처럼 unknown -> 제외
+        PredicateEvaluator.Matcher<Member> notTeamA = evaluator.compile(member.team.name.ne("teamA"));
+        assertThat(PredicateEvaluator.filter(members, notTeamA)).extracting("username").containsExactly("member3");
+
+        PredicateEvaluator.Matcher<Member> like = evaluator.compile(member.username.like("member_").and(member.age.between(15, 35)));
+        assertThat(PredicateEvaluator.filter(members, like)).extracting("username").containsExactly("member2", "member3");
+
+        assertThat(PredicateEvaluator.filter(members, evaluator.compile(new BooleanBuilder()))).hasSize(4);
+    }
+
+    @Test
+    public void dtoTest() {
+        List<MemberTeamDto> rows = Arrays.asList(
+                new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+                new MemberTeamDto(2L, "member2", 20, 2L, "teamB"));
+
+        PredicateEvaluator<MemberTeamDto> evaluator = PredicateEvaluator.forType(MemberTeamDto.class)
+                .bind(member.username, "username")
+                .bind(member.age, "age")
+                .bind(team.name, "teamName");
+
+        PredicateEvaluator.Matcher<MemberTeamDto> matcher = evaluator.compile(
+                team.name.in("teamB", "teamC").or(member.username.eq("member1").and(member.age.gt(10))));
+        assertThat(PredicateEvaluator.filter(rows, matcher)).extracting("memberId").containsExactly(2L);
+    }
+}
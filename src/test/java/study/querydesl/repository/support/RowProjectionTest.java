@@ -0,0 +1,103 @@
+package study.querydesl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydesl.dto.MemberDto;
+import study.querydesl.dto.MemberDtoProjection;
+import study.querydesl.dto.MemberTeamDto;
+import study.querydesl.dto.MemberTeamDtoProjection;
+import study.querydesl.dto.QMemberDto;
+import study.querydesl.dto.QMemberTeamDto;
+import study.querydesl.dto.QTeamStatsDto;
+import study.querydesl.dto.TeamStatsDto;
+import study.querydesl.dto.TeamStatsDtoProjection;
+import study.querydesl.entity.Member;
+import study.querydesl.entity.Team;
+import study.querydesl.entity.TeamStats;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydesl.entity.QMember.member;
+import static study.querydesl.entity.QTeam.team;
+import static study.querydesl.entity.QTeamStats.teamStats;
+
+/**
+ * 리플렉션 없는 프로젝션이 @QueryProjection Q타입과 같은 JPQL, 같은 DTO 를 만드는지 확인
+ */
+@Transactional
+@SpringBootTest
+class RowProjectionTest {
+
+    @Autowired
+    EntityManager em;
+
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before() {
+        queryFactory = new JPAQueryFactory(em);
+
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30)); // 팀 없음 (left join 으로 null 컬럼)
+        // 회원이 없는 팀은 최소/최대 나이가 null
+        em.persist(new TeamStats(teamA.getId(), 2, 30, 10, 20));
+        em.persist(new TeamStats(teamB.getId(), 0, 0, null, null));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void memberTeamDtoTest() {
+        MemberTeamDtoProjection projection = new MemberTeamDtoProjection(member.id, member.username, member.age, team.id, team.name);
+        QMemberTeamDto qType = new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name);
+
+        List<MemberTeamDto> result = queryFactory.select(projection)
+                .from(member).leftJoin(member.team, team).orderBy(member.id.asc()).fetch();
+        List<MemberTeamDto> expected = queryFactory.select(qType)
+                .from(member).leftJoin(member.team, team).orderBy(member.id.asc()).fetch();
+
+        assertThat(projection.getArgs()).isEqualTo(qType.getArgs());
+        assertThat(result).hasSize(3).isEqualTo(expected);
+        assertThat(result.get(2).getTeamId()).isNull();
+    }
+
+    @Test
+    public void memberDtoTest() {
+        MemberDtoProjection projection = new MemberDtoProjection(member.username, member.age);
+        QMemberDto qType = new QMemberDto(member.username, member.age);
+
+        List<MemberDto> result = queryFactory.select(projection).from(member).orderBy(member.id.asc()).fetch();
+        List<MemberDto> expected = queryFactory.select(qType).from(member).orderBy(member.id.asc()).fetch();
+
+        assertThat(projection.getArgs()).isEqualTo(qType.getArgs());
+        assertThat(result).hasSize(3).isEqualTo(expected);
+    }
+
+    @Test
+    public void teamStatsDtoTest() {
+        TeamStatsDtoProjection projection = new TeamStatsDtoProjection(teamStats.teamId, team.name,
+                teamStats.memberCount, teamStats.ageSum, teamStats.ageMin, teamStats.ageMax);
+        QTeamStatsDto qType = new QTeamStatsDto(teamStats.teamId, team.name,
+                teamStats.memberCount, teamStats.ageSum, teamStats.ageMin, teamStats.ageMax);
+
+        List<TeamStatsDto> result = queryFactory.select(projection)
+                .from(teamStats, team).where(teamStats.teamId.eq(team.id)).orderBy(team.name.asc()).fetch();
+        List<TeamStatsDto> expected = queryFactory.select(qType)
+                .from(teamStats, team).where(teamStats.teamId.eq(team.id)).orderBy(team.name.asc()).fetch();
+
+        assertThat(projection.getArgs()).isEqualTo(qType.getArgs());
+        assertThat(result).hasSize(2).isEqualTo(expected);
+        assertThat(result.get(1).getAgeMin()).isNull();
+    }
+}
@@ -0,0 +1,52 @@
+package study.querydesl.repository.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramIndexTest {
+
+    @Test
+    public void searchTest() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1L, "member1");
+        index.put(2L, "Member2");
+        index.put(3L, "admin");
+        index.put(4L, "mem");
+
+        // 대소문자 구분 없이, id 순서로
+        assertThat(index.search("MEMBER", 10)).containsExactly(1L, 2L);
+        assertThat(index.search("ber2", 10)).containsExactly(2L);
+        assertThat(index.search("mem", 10)).containsExactly(1L, 2L, 4L);
+        assertThat(index.search("nobody", 10)).isEmpty();
+
+        // 3글자 미만은 전체 확인
+        assertThat(index.search("m", 10)).containsExactly(1L, 2L, 3L, 4L);
+
+        // limit 을 넘으면 limit + 1 개까지만
+        assertThat(index.search("mem", 1)).hasSize(2);
+
+        // 변경과 삭제
+        index.put(1L, "renamed");
+        index.remove(2L);
+        assertThat(index.search("member", 10)).isEmpty();
+        assertThat(index.search("name", 10)).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void replaceRangeTest() {
+        TrigramIndex index = new TrigramIndex();
+        for (long id = 1; id <= 5; id++) {
+            index.put(id, "member" + id);
+        }
+
+        // (1, 3] 구간: 2 는 삭제, 3 은 변경, 구간 밖은 건드리지 않는다.
+        index.replaceRange(1L, 3L, new long[]{3L}, Arrays.asList("renamed3"));
+        assertThat(index.search("member", 10)).containsExactly(1L, 4L, 5L);
+        assertThat(index.search("renamed", 10)).containsExactly(3L);
+        assertThat(index.size()).isEqualTo(4);
+    }
+}
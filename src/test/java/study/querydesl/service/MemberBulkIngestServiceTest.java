@@ -0,0 +1,115 @@
+package study.querydesl.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydesl.CommittedTestData;
+import study.querydesl.dto.BulkIngestResult;
+import study.querydesl.dto.MemberIngestRequest;
+import study.querydesl.repository.TeamStatsRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 청크(25건)마다 커밋하므로 롤백 테스트 대신 커밋하고 뒷정리한다.
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@SpringBootTest(properties = {
+        "member.ingest.batch-size=10",
+        "member.ingest.chunk-size=25",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+class MemberBulkIngestServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    MemberBulkIngestService memberBulkIngestService;
+
+    @Autowired
+    TeamStatsRepository teamStatsRepository;
+
+    @AfterEach
+    public void after() {
+        CommittedTestData.deleteAll(transactionManager, em, eventPublisher);
+    }
+
+    @Test
+    public void ingestTest() {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        BulkIngestResult result = memberBulkIngestService.ingest(rows(60).iterator());
+
+        assertThat(result.getCount()).isEqualTo(60);
+        // 건마다 insert 문을 준비했다면 60 개 이상 (batch-size 10 건씩 JDBC 배치)
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(60);
+
+        // pooled-lo: 시퀀스 한 번에 100 개를 할당하므로 한 번에 저장한 id 는 빈틈없이 이어진다.
+        List<Long> ids = new TransactionTemplate(transactionManager).execute(status ->
+                em.createQuery("select m.id from Member m order by m.id", Long.class).getResultList());
+        assertThat(ids).hasSize(60);
+        assertThat(ids.get(59) - ids.get(0)).isEqualTo(59);
+
+        // 청크마다 발행한 벌크 이벤트로 팀 통계에 더했다.
+        assertThat(teamStatsRepository.findInconsistent()).isEmpty();
+    }
+
+    @Test
+    public void commitPerChunkTest() {
+        // 30번째 이후에 실패하면 첫 청크(25건)는 이미 커밋되었고 두 번째 청크만 롤백된다.
+        Iterator<MemberIngestRequest> source = rows(60).iterator();
+        Iterator<MemberIngestRequest> failing = new Iterator<MemberIngestRequest>() {
+            int read;
+
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public MemberIngestRequest next() {
+                if (++read > 30) {
+                    throw new IllegalStateException("broken input");
+                }
+                return source.next();
+            }
+        };
+
+        assertThatThrownBy(() -> memberBulkIngestService.ingest(failing))
+                .isInstanceOf(IllegalStateException.class);
+
+        Long count = new TransactionTemplate(transactionManager).execute(status ->
+                em.createQuery("select count(m) from Member m", Long.class).getSingleResult());
+        assertThat(count).isEqualTo(25);
+        assertThat(teamStatsRepository.findInconsistent()).isEmpty();
+    }
+
+    private static List<MemberIngestRequest> rows(int count) {
+        List<MemberIngestRequest> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new MemberIngestRequest("member" + i, i % 50, i % 3 == 0 ? null : i % 3 == 1 ? "teamA" : "teamB"));
+        }
+        return rows;
+    }
+}
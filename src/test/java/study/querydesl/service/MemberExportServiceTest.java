@@ -0,0 +1,73 @@
+package study.querydesl.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydesl.dto.MemberSearchCondition;
+import study.querydesl.entity.Member;
+import study.querydesl.entity.Team;
+import study.querydesl.repository.MemberJpaRepository;
+import study.querydesl.web.MemberTeamJsonWriter;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+@SpringBootTest
+class MemberExportServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberTeamJsonWriter jsonWriter;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("member" + i, i * 10, i < 3 ? teamA : null));
+        }
+    }
+
+    @Test
+    public void ndjsonTest() throws Exception {
+        // flush-interval 이 0 이하면 끝날 때만 내보낸다. (0 으로 나누지 않는다)
+        for (int flushInterval : new int[]{-1, 0, 1, 2, 1000}) {
+            MemberExportService exportService =
+                    new MemberExportService(memberJpaRepository, objectMapper, jsonWriter, 2, flushInterval);
+
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setAgeGoe(10);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertThat(exportService.exportNdjson(condition, out)).isEqualTo(4);
+
+            // 한 줄에 JSON 하나
+            List<String> usernames = new ArrayList<>();
+            for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+                JsonNode row = objectMapper.readTree(line);
+                usernames.add(row.get("username").asText());
+                if (row.get("username").asText().equals("member1")) {
+                    assertThat(row.get("teamName").asText()).isEqualTo("teamA");
+                }
+            }
+            assertThat(usernames).containsExactlyInAnyOrder("member1", "member2", "member3", "member4");
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package study.querydesl.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydesl.CommittedTestData;
+import study.querydesl.dto.MemberIngestRequest;
+import study.querydesl.entity.Member;
+import study.querydesl.entity.Team;
+import study.querydesl.entity.TeamStats;
+import study.querydesl.repository.MemberJpaRepository;
+import study.querydesl.repository.TeamStatsRepository;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 팀 통계는 커밋 직전(커밋 flush 다음)에 반영되므로 롤백 테스트 대신 커밋하고 뒷정리한다.
+ * 회원이 없는 teamC 에 일부러 틀린 통계를 넣어두고, 벌크 연산 후에도 teamC 가 불일치로 남아 있으면
+ * 전체를 다시 만들지(rebuild) 않았다는 뜻이다.
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@SpringBootTest
+class TeamStatsUpdaterTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    TeamStatsRepository teamStatsRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberBulkIngestService memberBulkIngestService;
+
+    TransactionTemplate tx;
+    Long teamAId;
+    Long teamBId;
+    Long teamCId;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            Team teamC = new Team("teamC");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(teamC);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+            teamCId = teamC.getId();
+        });
+        tx.executeWithoutResult(status -> em.persist(new TeamStats(teamCId, 5, 50, 10, 10)));
+    }
+
+    @AfterEach
+    public void after() {
+        CommittedTestData.deleteAll(transactionManager, em, eventPublisher);
+    }
+
+    @Test
+    public void entityChangeTest() {
+        // 저장 이벤트가 커밋 직전에 반영되었다.
+        assertThat(teamStatsRepository.findInconsistent()).containsExactly(teamCId);
+        assertThat(teamStatsRepository.findByTeamId(teamAId).getMemberCount()).isEqualTo(2);
+
+        tx.executeWithoutResult(status -> {
+            Member member1 = em.createQuery("select m from Member m where m.username = 'member1'", Member.class)
+                    .getSingleResult();
+            member1.changeTeam(em.find(Team.class, teamBId));
+        });
+
+        assertThat(teamStatsRepository.findInconsistent()).containsExactly(teamCId);
+        assertThat(teamStatsRepository.findByTeamId(teamAId).getAgeMin()).isEqualTo(20);
+        assertThat(teamStatsRepository.findByTeamId(teamBId).getMemberCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void commitFlushTest() {
+        // flush 없이 저장/변경만 하고 커밋: 이벤트가 커밋할 때의 flush 에서 처음 와도 반영된다.
+        tx.executeWithoutResult(status -> memberJpaRepository.save(new Member("member4", 5, em.find(Team.class, teamBId))));
+
+        assertThat(teamStatsRepository.findInconsistent()).containsExactly(teamCId);
+        assertThat(teamStatsRepository.findByTeamId(teamBId).getMemberCount()).isEqualTo(2);
+        assertThat(teamStatsRepository.findByTeamId(teamBId).getAgeMin()).isEqualTo(5);
+
+        tx.executeWithoutResult(status -> {
+            Member member4 = em.createQuery("select m from Member m where m.username = 'member4'", Member.class)
+                    .getSingleResult();
+            member4.setAge(50);
+        });
+
+        assertThat(teamStatsRepository.findInconsistent()).containsExactly(teamCId);
+        assertThat(teamStatsRepository.findByTeamId(teamBId).getAgeMin()).isEqualTo(30);
+        assertThat(teamStatsRepository.findByTeamId(teamBId).getAgeMax()).isEqualTo(50);
+    }
+
+    @Test
+    public void bulkUsernameSkipsStatsTest() {
+        memberJpaRepository.bulkUpdateUsernameChunked("renamed", 100, null);
+        tx.executeWithoutResult(status -> memberJpaRepository.bulkUpdateUsername("renamed2", 100));
+
+        // 회원명만 바뀌었으므로 통계는 건드리지 않는다.
+        assertThat(teamStatsRepository.findInconsistent()).containsExactly(teamCId);
+    }
+
+    @Test
+    public void bulkAgeAndDeleteRecomputeTouchedTeamsTest() {
+        memberJpaRepository.bulkAgePlusChunked(1, null);
+        assertThat(teamStatsRepository.findInconsistent()).containsExactly(teamCId);
+        assertThat(teamStatsRepository.findByTeamId(teamAId).getAgeMin()).isEqualTo(11);
+        assertThat(teamStatsRepository.findByTeamId(teamBId).getAgeMax()).isEqualTo(31);
+
+        memberJpaRepository.bulkDeleteByAgeGtChunked(15, null);
+        assertThat(teamStatsRepository.findInconsistent()).containsExactly(teamCId);
+        assertThat(teamStatsRepository.findByTeamId(teamAId).getMemberCount()).isEqualTo(1);
+        assertThat(teamStatsRepository.findByTeamId(teamBId)).isNull();
+    }
+
+    @Test
+    public void ingestAppliesDeltasTest() {
+        memberBulkIngestService.ingest(Arrays.asList(
+                new MemberIngestRequest("member4", 5, "teamA"),
+                new MemberIngestRequest("member5", 40, "teamA"),
+                new MemberIngestRequest("member6", 50, "teamD"),
+                new MemberIngestRequest("member7", 60, null)).iterator());
+
+        assertThat(teamStatsRepository.findInconsistent()).containsExactly(teamCId);
+        assertThat(teamStatsRepository.findByTeamId(teamAId).getMemberCount()).isEqualTo(4);
+        assertThat(teamStatsRepository.findByTeamId(teamAId).getAgeMin()).isEqualTo(5);
+        assertThat(teamStatsRepository.findByTeamId(teamAId).getAgeMax()).isEqualTo(40);
+    }
+}
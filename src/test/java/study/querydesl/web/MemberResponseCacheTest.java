@@ -0,0 +1,132 @@
+package study.querydesl.web;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydesl.CommittedTestData;
+import study.querydesl.entity.Member;
+import study.querydesl.entity.Team;
+import study.querydesl.service.TeamService;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 응답 캐시는 커밋/롤백 시점에 무효화되므로 롤백 테스트 대신 커밋하고 뒷정리한다.
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@SpringBootTest(properties = "member.response-cache.enabled=true")
+@AutoConfigureMockMvc
+class MemberResponseCacheTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    MemberResponseCache memberResponseCache;
+
+    @Autowired
+    TeamService teamService;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        CommittedTestData.deleteAll(transactionManager, em, eventPublisher);
+    }
+
+    @Test
+    public void hitAndEtagTest() throws Exception {
+        long hits = memberResponseCache.stats().getHitCount();
+
+        MvcResult first = mockMvc.perform(get("/v2/members").param("teamName", "teamA"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).matches("\"[0-9a-f]+-[0-9a-f]+\"");
+
+        // 두 번째는 캐시 적중, 본문과 ETag 가 같다.
+        mockMvc.perform(get("/v2/members").param("teamName", "teamA"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().bytes(first.getResponse().getContentAsByteArray()));
+        assertThat(memberResponseCache.stats().getHitCount()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    public void notModifiedTest() throws Exception {
+        String etag = mockMvc.perform(get("/v3/members").param("teamName", "teamA"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/v3/members").param("teamName", "teamA")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().bytes(new byte[0]));
+
+        // 회원이 바뀌어 커밋되면 무효화되고 새 ETag 로 200
+        tx.executeWithoutResult(status -> {
+            Team teamA = em.createQuery("select t from Team t where t.name = 'teamA'", Team.class).getSingleResult();
+            em.persist(new Member("member3", 30, teamA));
+        });
+        mockMvc.perform(get("/v3/members").param("teamName", "teamA")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(3));
+    }
+
+    @Test
+    public void teamChangedTest() throws Exception {
+        mockMvc.perform(get("/v2/members").param("teamName", "teamA"))
+                .andExpect(jsonPath("$.content[0].teamName").value("teamA"));
+
+        Long teamId = em.createQuery("select t.id from Team t where t.name = 'teamA'", Long.class).getSingleResult();
+        teamService.rename(teamId, "teamB");
+
+        mockMvc.perform(get("/v2/members").param("teamName", "teamB"))
+                .andExpect(jsonPath("$.content[0].teamName").value("teamB"));
+        mockMvc.perform(get("/v2/members").param("teamName", "teamA"))
+                .andExpect(jsonPath("$.content.length()").value(0));
+    }
+}
@@ -0,0 +1,51 @@
+package study.querydesl.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import study.querydesl.dto.MemberTeamDto;
+import study.querydesl.repository.support.EstimatedPage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberTeamJsonWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MemberTeamJsonWriter writer = new MemberTeamJsonWriter(64);
+
+    private final List<MemberTeamDto> rows = Arrays.asList(
+            new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+            new MemberTeamDto(2L, "\"회원\"\n\\2", 20, null, null),
+            new MemberTeamDto(3L, "member3 😀", 30, 2L, "teamB"));
+
+    @Test
+    public void sameAsJacksonTest() throws IOException {
+        ByteArrayOutputStream list = new ByteArrayOutputStream();
+        assertThat(writer.writeList(rows.iterator(), list)).isEqualTo(3);
+        // 필드 순서까지 같다.
+        assertThat(list.toByteArray()).isEqualTo(objectMapper.writeValueAsBytes(rows));
+
+        assertSameJson(new PageImpl<>(rows, PageRequest.of(1, 3), 10));
+        assertSameJson(new PageImpl<>(rows, PageRequest.of(0, 3, Sort.by("username")), 3));
+        assertSameJson(new PageImpl<>(rows));
+        assertSameJson(new EstimatedPage<>(rows, PageRequest.of(0, 3), 1000, true));
+        assertSameJson(new SliceImpl<>(rows, PageRequest.of(2, 3), true));
+        assertSameJson(new SliceImpl<>(rows, Pageable.unpaged(), false));
+    }
+
+    private void assertSameJson(Slice<MemberTeamDto> slice) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeSlice(slice, out);
+        assertThat(objectMapper.readTree(out.toByteArray())).isEqualTo(objectMapper.valueToTree(slice));
+    }
+}
@@ -0,0 +1,71 @@
+package study.querydesl.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapSlabCacheTest {
+
+    @Test
+    public void slabEvictionTest() {
+        OffHeapSlabCache cache = new OffHeapSlabCache(10, 2);
+        long generation = cache.generation();
+
+        assertThat(cache.put("a", bytes("aaaa"), "\"a\"", generation)).isTrue();
+        assertThat(cache.put("b", bytes("bbbb"), "\"b\"", generation)).isTrue();
+        assertThat(cache.put("c", bytes("cccc"), "\"c\"", generation)).isTrue(); // 두 번째 슬랩
+        assertThat(cache.put("big", bytes("01234567890"), "\"big\"", generation)).isFalse(); // 슬랩보다 큼
+
+        try (OffHeapSlabCache.Hit hit = cache.get("b")) {
+            assertThat(text(hit.getBody())).isEqualTo("bbbb");
+            assertThat(hit.getEtag()).isEqualTo("\"b\"");
+        }
+
+        // 세 번째 슬랩이 필요하면 가장 오래된 첫 번째 슬랩(a, b)을 통째로 비운다.
+        cache.put("d", bytes("dddddddd"), "\"d\"", generation);
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isNull();
+        assertThat(text(cache.get("c").getBody())).isEqualTo("cccc");
+        assertThat(cache.stats().getEvictionCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void pinnedSlabIsNotOverwrittenTest() {
+        OffHeapSlabCache cache = new OffHeapSlabCache(10, 1);
+
+        cache.put("a", bytes("aaaa"), "\"a\"", cache.generation());
+        OffHeapSlabCache.Hit reading = cache.get("a");
+
+        // 읽는 중에 무효화되고 같은 슬랩에 다시 쓰여도 읽던 내용은 그대로
+        cache.invalidateAll();
+        cache.put("b", bytes("bbbb"), "\"b\"", cache.generation());
+        assertThat(text(reading.getBody())).isEqualTo("aaaa");
+        reading.close();
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(text(cache.get("b").getBody())).isEqualTo("bbbb");
+    }
+
+    @Test
+    public void invalidatedWhileLoadingTest() {
+        OffHeapSlabCache cache = new OffHeapSlabCache(10, 1);
+
+        long generation = cache.generation();
+        cache.invalidateAll(); // 조회 도중 회원 변경
+        assertThat(cache.put("a", bytes("aaaa"), "\"a\"", generation)).isFalse();
+        assertThat(cache.get("a")).isNull();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}